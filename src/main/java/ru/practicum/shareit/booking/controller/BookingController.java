@@ -1,8 +1,16 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
 
@@ -13,6 +21,7 @@ import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@Validated
 @RequestMapping(path = "/bookings")
 public class BookingController {
 
@@ -31,6 +40,12 @@ public class BookingController {
         return bookingService.update(bookingId, userId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> updateAll(@RequestBody @Valid BookingDecisionDto decision,
+                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.updateAll(decision, userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingResponseDto findById(@PathVariable long bookingId,
                                        @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -46,6 +61,15 @@ public class BookingController {
         return bookingService.findByState(state, userId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public BookingPageDto findByStateAfterCursor(
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String cursor,
+            @Positive @RequestParam(required = false, defaultValue = "100") Integer size) {
+        return bookingService.findByStateAfterCursor(state, userId, cursor, size);
+    }
+
     @GetMapping("/owner")
     public List<BookingResponseDto> findOwnerItems(
             @RequestParam(defaultValue = "ALL") String state,
@@ -54,4 +78,25 @@ public class BookingController {
             @Positive @RequestParam(required = false, defaultValue = "100") Integer size) {
         return bookingService.findOwnerItems(state, userId, from, size);
     }
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public BookingPageDto findOwnerItemsAfterCursor(
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String cursor,
+            @Positive @RequestParam(required = false, defaultValue = "100") Integer size) {
+        return bookingService.findOwnerItemsAfterCursor(state, userId, cursor, size);
+    }
+
+    @GetMapping(path = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.exportOwnerBookings(userId));
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerEvents(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.subscribeOwnerEvents(userId);
+    }
 }
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BookingDecisionDto {
+    public static final int MAX_BOOKINGS = 500;
+
+    @NotEmpty
+    @Size(max = MAX_BOOKINGS)
+    private List<Long> bookingIds;
+
+    @NotNull
+    private Boolean approved;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.booking.enums.DecisionResult;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BookingDecisionResultDto {
+
+    private long bookingId;
+
+    private DecisionResult result;
+}
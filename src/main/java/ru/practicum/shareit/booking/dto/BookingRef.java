@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface BookingRef {
+
+    Long getId();
+
+    Long getItemId();
+}
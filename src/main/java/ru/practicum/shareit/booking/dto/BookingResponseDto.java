@@ -4,8 +4,6 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import ru.practicum.shareit.booking.enums.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
@@ -16,13 +14,19 @@ public class BookingResponseDto {
 
     private long id;
 
-    private Item item;
+    private BookedItemDto item;
 
-    private User booker;
+    private BookerDto booker;
 
     private BookingStatus status;
 
     private LocalDateTime start;
 
     private LocalDateTime end;
+
+    // Used by the JPQL constructor expressions in BookingRepository
+    public BookingResponseDto(long id, long itemId, String itemName, long bookerId, BookingStatus status,
+                              LocalDateTime start, LocalDateTime end) {
+        this(id, new BookedItemDto(itemId, itemName), new BookerDto(bookerId), status, start, end);
+    }
 }
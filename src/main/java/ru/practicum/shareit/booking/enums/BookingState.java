@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.enums;
+
+import ru.practicum.shareit.exception.UnsupportedStatus;
+
+public enum BookingState {
+
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    public static BookingState from(String state) throws UnsupportedStatus {
+        try {
+            return BookingState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedStatus("Неправильное именование статуса бронирования.");
+        }
+    }
+}
@@ -1,9 +1,31 @@
 package ru.practicum.shareit.booking.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum BookingStatus {
 
     WAITING,
     APPROVED,
     REJECTED,
-    CANCELED
+    CANCELED,
+    EXPIRED;
+
+    public boolean canBecome(BookingStatus next) {
+        return transitions().contains(next);
+    }
+
+    private Set<BookingStatus> transitions() {
+        switch (this) {
+            case WAITING:
+                return EnumSet.of(APPROVED, REJECTED, CANCELED, EXPIRED);
+            case APPROVED:
+                return EnumSet.of(REJECTED, CANCELED);
+            // An owner may still approve a booking they rejected, and rejecting it again is a no-op.
+            case REJECTED:
+                return EnumSet.of(APPROVED, REJECTED);
+            default:
+                return EnumSet.noneOf(BookingStatus.class);
+        }
+    }
 }
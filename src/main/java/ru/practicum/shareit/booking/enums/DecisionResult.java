@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.enums;
+
+public enum DecisionResult {
+
+    UPDATED,
+    NOT_FOUND,
+    NOT_WAITING,
+    CONFLICT
+}
@@ -30,8 +30,9 @@ public class BookingMapper {
     public static BookingResponseDto toBookingResponseDto(Booking booking) {
         return new BookingResponseDto(
                 booking.getId(),
-                booking.getItem(),
-                booking.getBooker(),
+                booking.getItem().getId(),
+                booking.getItem().getName(),
+                booking.getBooker().getId(),
                 booking.getStatus(),
                 booking.getStart(),
                 booking.getEnd());
@@ -45,6 +45,10 @@ public class Booking {
     @JoinColumn(name = "BOOKER_ID")
     private User booker;
 
+    // Copy of the item's owner, so owner listings seek on BOOKINGS_OWNER_START_IDX instead of joining ITEMS.
+    @Column(name = "ITEM_OWNER_ID")
+    private Long itemOwnerId;
+
     @Column(name = "STATUS")
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
@@ -1,75 +1,173 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOwnership;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingRef;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findAllByItemOwnerOrderByStartDesc(User itemOwner, Pageable pageable);
-
-    Page<Booking> findAllByBookerOrderByStartDesc(User user, Pageable pageable);
-
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(long bookerId, LocalDateTime localDateTime);
-
-    List<Booking> findAllByBookerAndStatusOrderByStartDesc(User user, BookingStatus bookingStatus);
-
-    List<Booking> findAllByBookerAndEndIsBefore(User user, LocalDateTime end);
-
-    List<Booking> findAllByBookerAndEndIsAfterAndStartIsBefore(User user, LocalDateTime end, LocalDateTime start);
-
-    @Query(value = "SELECT * FROM BOOKINGS B " +
-            "JOIN ITEMS I ON I.ID = B.ITEM_ID " +
-            "WHERE I.OWNER_ID = ?1 " +
-            "AND B.END_DATE < ?2 " +
-            "ORDER BY B.START_DATE DESC ",
-            nativeQuery = true)
-    List<Booking> findAllByOwnerAndEndIsBefore(long ownerId, LocalDateTime end);
-
-    @Query(value = "SELECT * FROM BOOKINGS B " +
-            "JOIN ITEMS I ON I.ID = B.ITEM_ID " +
-            "WHERE I.OWNER_ID = ?1 " +
-            "AND (B.END_DATE > ?2 AND B.START_DATE < ?3)" +
-            "ORDER BY B.START_DATE DESC ",
-            nativeQuery = true)
-    List<Booking> findAllByOwnerAndEndIsAfterAndStartIsBefore(long ownerId, LocalDateTime end, LocalDateTime start);
-
-    @Query(value = "SELECT * FROM BOOKINGS B " +
-            "JOIN ITEMS I ON I.ID = B.ITEM_ID " +
-            "WHERE I.OWNER_ID = ?1 " +
-            "ORDER BY B.START_DATE DESC ",
-            nativeQuery = true)
-    Page<Booking> findAllByItemOwner(long userId, Pageable pageable);
-
-    @Query(value = "SELECT * FROM BOOKINGS B " +
-            "JOIN ITEMS I ON I.ID = B.ITEM_ID " +
-            "WHERE I.OWNER_ID = ?1 " +
-            "AND B.STATUS = ?2 " +
-            "ORDER BY B.START_DATE DESC",
-            nativeQuery = true)
-    List<Booking> findAllByItemOwnerAndStatusOrderByStartDesc(long userId, String status);
-
-    @Query(value = "SELECT * FROM BOOKINGS B " +
-            "JOIN ITEMS I ON I.ID = B.ITEM_ID " +
-            "WHERE I.OWNER_ID = ?1 " +
-            "AND (B.STATUS = ?2 OR B.STATUS = ?3)" +
-            "ORDER BY B.START_DATE DESC ",
-            nativeQuery = true)
-    List<Booking> findAllByOwnerAndStatusFutureOrderByStartDesc(long ownerId, String status1, String status2);
-
-    //Last
-    Booking findFirstByItemIdAndStartBeforeOrderByStartDesc(long itemId, LocalDateTime end);
-
-    //Next
-    Booking findFirstByItemIdAndStartAfterOrderByStart(long itemId, LocalDateTime start);
+
+    String SELECT_RESPONSE = "SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(" +
+            "B.id, B.item.id, B.item.name, B.booker.id, B.status, B.start, B.end) FROM Booking B ";
+    String SELECT_DTO = "SELECT new ru.practicum.shareit.booking.dto.BookingDto(" +
+            "B.id, B.item.id, B.booker.id, B.start, B.end, B.status) FROM Booking B ";
+    String ORDER_BY_START = "ORDER BY B.start DESC, B.id DESC";
+    String SELECT_OWNERSHIP = "SELECT B.id AS id, B.item.id AS itemId, B.itemOwnerId AS ownerId, " +
+            "B.status AS status, B.start AS start, B.end AS end FROM Booking B ";
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByBookerId(long bookerId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            "AND B.start > ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findFutureResponsesByBookerId(long bookerId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            "AND B.end > ?2 AND B.start < ?3 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findCurrentResponsesByBookerId(long bookerId, LocalDateTime end, LocalDateTime start,
+                                                            Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            "AND B.end < ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findPastResponsesByBookerId(long bookerId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            "AND B.status = ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByBookerIdAndStatus(long bookerId, BookingStatus status,
+                                                              Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.booker.id = ?1 " +
+            "AND (B.start < ?2 OR (B.start = ?2 AND B.id < ?3)) " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByBookerIdAfterCursor(long bookerId, LocalDateTime start, long id,
+                                                                Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByItemOwnerId(long ownerId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "ORDER BY B.id")
+    Stream<BookingResponseDto> streamResponsesByItemOwnerId(long ownerId);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "AND B.status IN ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByItemOwnerIdAndStatusIn(long ownerId, Collection<BookingStatus> statuses,
+                                                                   Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "AND B.end > ?2 AND B.start < ?3 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findCurrentResponsesByItemOwnerId(long ownerId, LocalDateTime end, LocalDateTime start,
+                                                               Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "AND B.end < ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findPastResponsesByItemOwnerId(long ownerId, LocalDateTime now, Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "AND B.status = ?2 " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByItemOwnerIdAndStatus(long ownerId, BookingStatus status,
+                                                                 Pageable pageable);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.itemOwnerId = ?1 " +
+            "AND (B.start < ?2 OR (B.start = ?2 AND B.id < ?3)) " +
+            ORDER_BY_START)
+    List<BookingResponseDto> findResponsesByItemOwnerIdAfterCursor(long ownerId, LocalDateTime start, long id,
+                                                                   Pageable pageable);
+
+    //Last for a page of items
+    @Query(SELECT_DTO +
+            "WHERE B.item.id IN ?1 " +
+            "AND B.start = (SELECT MAX(L.start) FROM Booking L WHERE L.item.id = B.item.id AND L.start < ?2)")
+    List<BookingDto> findLastByItemIdIn(Collection<Long> itemIds, LocalDateTime now);
+
+    //Next for a page of items
+    @Query(SELECT_DTO +
+            "WHERE B.item.id IN ?1 " +
+            "AND B.start = (SELECT MIN(N.start) FROM Booking N WHERE N.item.id = B.item.id AND N.start > ?2)")
+    List<BookingDto> findNextByItemIdIn(Collection<Long> itemIds, LocalDateTime now);
+
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(long itemId, Collection<BookingStatus> statuses,
+                                                        LocalDateTime end);
+
+    List<BookingPeriod> findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(long itemId,
+                                                                                        Collection<BookingStatus> statuses,
+                                                                                        LocalDateTime to,
+                                                                                        LocalDateTime from);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.id = ?1 AND B.itemOwnerId = ?2")
+    Optional<BookingResponseDto> findResponseByIdAndItemOwnerId(long id, long ownerId);
+
+    @Query(SELECT_RESPONSE +
+            "WHERE B.id IN ?1 " +
+            "ORDER BY B.id")
+    List<BookingResponseDto> findResponsesByIdIn(Collection<Long> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking B SET B.status = ?2 WHERE B.id = ?1 AND B.status = ?3")
+    int updateStatus(long id, BookingStatus status, BookingStatus expected);
+
+    @Query(SELECT_OWNERSHIP + "WHERE B.id IN ?1")
+    List<BookingOwnership> findOwnershipByIdIn(Collection<Long> ids);
+
+    // Locks the rows until the transaction ends, so the statuses read stay valid for a following update.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(SELECT_OWNERSHIP + "WHERE B.id IN ?1")
+    List<BookingOwnership> findOwnershipByIdInForUpdate(Collection<Long> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking B SET B.status = ?2 WHERE B.id IN ?1 AND B.status = ?3")
+    int updateStatusByIdIn(Collection<Long> ids, BookingStatus status, BookingStatus expected);
+
+    @Query("SELECT B.id AS id, B.item.id AS itemId FROM Booking B " +
+            "WHERE B.status = ?1 AND B.start < ?2 ORDER BY B.id")
+    List<BookingRef> findRefsByStatusAndStartBefore(BookingStatus status, LocalDateTime start, Pageable pageable);
 
     boolean existsBookingByItemIdAndBookerIdAndEndBeforeAndStatusNotLike(long itemId, long bookerId, LocalDateTime localDateTime,
                                                                          BookingStatus bookingStatus);
@@ -0,0 +1,268 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.validation.ValidationException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-item sorted set of WAITING and APPROVED booking intervals, used to reject overlapping bookings.
+ * An item's intervals are loaded from BOOKINGS on first use and then maintained by every write that goes
+ * through this index. Times are rounded to the database's microsecond precision, so an interval compares
+ * the same before and after a reload. Writes for one item are serialised by a striped lock held until the booking is stored,
+ * so two parallel requests can't both pass the overlap check.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingConflictIndex {
+    private static final int STRIPES = 64;
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    private static final String BOOKING_CONFLICT = "Вещь уже забронирована на указанный период.";
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, Intervals> intervalsByItem = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = createLocks();
+
+    public Booking reserve(Booking booking, UnaryOperator<Booking> persist) throws ValidationException {
+        long itemId = booking.getItem().getId();
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            if (overlapsAny(intervals(itemId), booking) && overlapsAny(reload(itemId), booking)) {
+                throw new ValidationException(BOOKING_CONFLICT);
+            }
+            Booking saved = persist.apply(booking);
+            intervals(itemId).add(new Interval(saved));
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean approve(long bookingId, long itemId, LocalDateTime start, LocalDateTime end,
+                           BooleanSupplier transition) throws ValidationException {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            if (overlapsApproved(intervals(itemId), bookingId, start, end)
+                    && overlapsApproved(reload(itemId), bookingId, start, end)) {
+                throw new ValidationException(BOOKING_CONFLICT);
+            }
+            if (!transition.getAsBoolean()) {
+                return false;
+            }
+            Intervals intervals = intervals(itemId);
+            intervals.removeIf(interval -> interval.id == bookingId);
+            intervals.add(new Interval(bookingId, start, end, BookingStatus.APPROVED));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean release(long bookingId, long itemId, BooleanSupplier transition) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            if (!transition.getAsBoolean()) {
+                return false;
+            }
+            Intervals intervals = intervalsByItem.get(itemId);
+            if (intervals != null) {
+                intervals.removeIf(interval -> interval.id == bookingId);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops bookings another statement already moved out of WAITING, e.g. a set-based rejection.
+    public void remove(Map<Long, List<Long>> bookingIdsByItem) {
+        bookingIdsByItem.forEach((itemId, bookingIds) -> {
+            ReentrantLock lock = lockFor(itemId);
+            lock.lock();
+            try {
+                Intervals intervals = intervalsByItem.get(itemId);
+                if (intervals != null) {
+                    Set<Long> removed = new HashSet<>(bookingIds);
+                    intervals.removeIf(interval -> removed.contains(interval.id));
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Holds an item's lock across several approve/release calls, which re-enter it.
+    public <T> T withLock(long itemId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean overlapsAny(Intervals intervals, Booking booking) {
+        return intervals.overlaps(booking.getStart(), booking.getEnd(), interval -> true);
+    }
+
+    private boolean overlapsApproved(Intervals intervals, long bookingId, LocalDateTime start, LocalDateTime end) {
+        return intervals.overlaps(start, end,
+                interval -> interval.id != bookingId && interval.status == BookingStatus.APPROVED);
+    }
+
+    private Intervals intervals(long itemId) {
+        Intervals intervals = intervalsByItem.computeIfAbsent(itemId, this::load);
+        intervals.removeEndedBy(LocalDateTime.now());
+        return intervals;
+    }
+
+    // The cached set can go stale when bookings are removed by cascading deletes, so a conflict
+    // is always confirmed against BOOKINGS before the request is rejected.
+    private Intervals reload(long itemId) {
+        Intervals intervals = load(itemId);
+        intervalsByItem.put(itemId, intervals);
+        return intervals;
+    }
+
+    private Intervals load(long itemId) {
+        Intervals intervals = new Intervals();
+        bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId, ACTIVE_STATUSES, LocalDateTime.now())
+                .forEach(booking -> intervals.add(new Interval(booking)));
+        return intervals;
+    }
+
+    private ReentrantLock lockFor(long itemId) {
+        return locks[Math.floorMod(Long.hashCode(itemId), STRIPES)];
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    /**
+     * One item's intervals ordered by start, plus the multiset of their lengths. An interval overlapping
+     * [start, end) starts before end and, being no longer than the longest one held, after start minus
+     * that length, so the scan walks back from end and stops there. Reserve keeps new intervals disjoint,
+     * which leaves one or two intervals in that range in practice; only overlapping legacy rows widen it.
+     */
+    private static final class Intervals {
+        private final NavigableSet<Interval> byStart = new TreeSet<>(Interval.ORDER);
+        private final NavigableMap<Duration, Integer> lengths = new TreeMap<>();
+
+        private void add(Interval interval) {
+            if (byStart.add(interval)) {
+                lengths.merge(interval.length(), 1, Integer::sum);
+            }
+        }
+
+        private void removeIf(Predicate<Interval> filter) {
+            Iterator<Interval> iterator = byStart.iterator();
+            while (iterator.hasNext()) {
+                Interval interval = iterator.next();
+                if (filter.test(interval)) {
+                    iterator.remove();
+                    forgetLength(interval);
+                }
+            }
+        }
+
+        private void removeEndedBy(LocalDateTime now) {
+            LocalDateTime cutoff = Interval.toMicros(now);
+            Iterator<Interval> iterator = byStart.iterator();
+            while (iterator.hasNext()) {
+                Interval interval = iterator.next();
+                if (interval.end.isAfter(cutoff)) {
+                    return;
+                }
+                iterator.remove();
+                forgetLength(interval);
+            }
+        }
+
+        private boolean overlaps(LocalDateTime start, LocalDateTime end, Predicate<Interval> filter) {
+            if (byStart.isEmpty()) {
+                return false;
+            }
+            LocalDateTime from = Interval.toMicros(start);
+            LocalDateTime earliestStart = from.minus(lengths.lastKey());
+            for (Interval candidate : byStart.headSet(Interval.probe(end), false).descendingSet()) {
+                if (!candidate.start.isAfter(earliestStart)) {
+                    return false;
+                }
+                if (candidate.end.isAfter(from) && filter.test(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void forgetLength(Interval interval) {
+            lengths.computeIfPresent(interval.length(), (length, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private static final class Interval {
+        private static final Comparator<Interval> ORDER = Comparator
+                .comparing((Interval interval) -> interval.start)
+                .thenComparingLong(interval -> interval.id);
+
+        private final long id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final BookingStatus status;
+
+        private Interval(long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+            this.id = id;
+            this.start = toMicros(start);
+            this.end = toMicros(end);
+            this.status = status;
+        }
+
+        private Interval(Booking booking) {
+            this(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus());
+        }
+
+        private static Interval probe(LocalDateTime start) {
+            return new Interval(Long.MIN_VALUE, start, start, null);
+        }
+
+        // Rounds half up, as H2 and PostgreSQL do when storing a timestamp(6).
+        private static LocalDateTime toMicros(LocalDateTime time) {
+            return time.plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+        }
+
+        private Duration length() {
+            return Duration.between(start, end);
+        }
+    }
+}
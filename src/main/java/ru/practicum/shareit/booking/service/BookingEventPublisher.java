@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.stream.SseBroadcaster;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams new, approved and rejected bookings to the owner of the booked item,
+ * served by GET /bookings/owner/stream in place of polling GET /bookings/owner?state=WAITING.
+ * A single change is sent as a "booking" event, a batch decision as one "bookings" event with a list.
+ */
+@Service
+public class BookingEventPublisher {
+    private final SseBroadcaster broadcaster;
+
+    public BookingEventPublisher(@Value("${shareit.booking.stream.timeout}") Duration timeout,
+                                 @Value("${shareit.booking.stream.buffer-size}") int bufferSize,
+                                 @Value("${shareit.booking.stream.dispatcher-threads}") int dispatcherThreads,
+                                 MeterRegistry meterRegistry) {
+        this.broadcaster = new SseBroadcaster("owner-bookings", "booking", timeout, bufferSize, dispatcherThreads,
+                meterRegistry);
+    }
+
+    public SseEmitter subscribe(long ownerId) {
+        return broadcaster.subscribe(ownerId);
+    }
+
+    public boolean hasSubscribers(long ownerId) {
+        return broadcaster.hasSubscribers(ownerId);
+    }
+
+    public void publish(long ownerId, BookingResponseDto booking) {
+        broadcaster.publish(ownerId, booking);
+    }
+
+    public void publishAll(long ownerId, List<BookingResponseDto> bookings) {
+        broadcaster.publish(ownerId, "bookings", bookings);
+    }
+
+    public void disconnect(long ownerId) {
+        broadcaster.disconnect(ownerId);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.stream.keep-alive-interval}")
+    public void keepAlive() {
+        broadcaster.keepAlive();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingRef;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves WAITING bookings whose start has passed to EXPIRED, a batch of ids at a time.
+ * Stale entries left in {@link BookingConflictIndex} are harmless: it confirms conflicts against BOOKINGS.
+ */
+@Slf4j
+@Service
+public class BookingExpiryJob {
+    private final BookingRepository bookingRepository;
+    private final ItemBookingSummary itemBookingSummary;
+    private final int batchSize;
+    private final Counter expiredCounter;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            ItemBookingSummary itemBookingSummary,
+                            @Value("${shareit.booking.expiry.batch-size}") int batchSize,
+                            MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.itemBookingSummary = itemBookingSummary;
+        this.batchSize = batchSize;
+        this.expiredCounter = meterRegistry.counter("shareit.bookings.expired");
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval}")
+    public void expireStaleBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        List<BookingRef> refs;
+        do {
+            refs = bookingRepository.findRefsByStatusAndStartBefore(BookingStatus.WAITING, now,
+                    PageRequest.of(0, batchSize));
+            if (!refs.isEmpty()) {
+                List<Long> ids = refs.stream().map(BookingRef::getId).collect(Collectors.toList());
+                int expired = bookingRepository.updateStatusByIdIn(ids, BookingStatus.EXPIRED, BookingStatus.WAITING);
+                itemBookingSummary.invalidate(refs.stream().map(BookingRef::getItemId).collect(Collectors.toSet()));
+                expiredCounter.increment(expired);
+                total += expired;
+            }
+        } while (refs.size() == batchSize);
+        if (total > 0) {
+            log.info("Expired {} waiting bookings", total);
+        }
+    }
+}
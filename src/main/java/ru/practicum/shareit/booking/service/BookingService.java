@@ -1,7 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
 import java.util.List;
@@ -15,6 +20,9 @@ public interface BookingService {
     BookingResponseDto update(long bookingId, long userId, boolean approved)
             throws ShareItNotFoundException;
 
+    List<BookingDecisionResultDto> updateAll(BookingDecisionDto decision, long userId)
+            throws ShareItNotFoundException;
+
     BookingResponseDto findById(long bookingId, long userID)
             throws ShareItNotFoundException;
 
@@ -24,4 +32,16 @@ public interface BookingService {
     List<BookingResponseDto> findOwnerItems(String state, long userId, Integer from, Integer size)
             throws ShareItNotFoundException;
 
+    BookingPageDto findByStateAfterCursor(String state, long userId, String cursor, Integer size)
+            throws ShareItNotFoundException;
+
+    BookingPageDto findOwnerItemsAfterCursor(String state, long userId, String cursor, Integer size)
+            throws ShareItNotFoundException;
+
+    StreamingResponseBody exportOwnerBookings(long userId)
+            throws ShareItNotFoundException;
+
+    SseEmitter subscribeOwnerEvents(long userId)
+            throws ShareItNotFoundException;
+
 }
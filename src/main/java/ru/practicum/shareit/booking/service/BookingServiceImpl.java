@@ -1,24 +1,46 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingOwnership;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.enums.DecisionResult;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
 import ru.practicum.shareit.exception.UnsupportedStatus;
+import ru.practicum.shareit.export.NdjsonExporter;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.pageable.FromSizeRequest;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.pageable.SeekCursor;
+import ru.practicum.shareit.transaction.AfterCommit;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 import javax.validation.ValidationException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,14 +49,50 @@ public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final ItemRepository itemRepository;
+    private final BookingConflictIndex bookingConflictIndex;
+    private final ItemBookingSummary itemBookingSummary;
+    private final NdjsonExporter ndjsonExporter;
+    private final BookingEventPublisher bookingEventPublisher;
+    private final TransactionTemplate transactionTemplate;
     private static final String ITEM_NOT_FOUND = "Вещь с указанным Id не существует.";
     private static final String USER_NOT_FOUND = "Пользователя с указанным Id не существует.";
     private static final String BOOKING_NOT_FOUND = "Бронирование вещи с указанным Id не существует.";
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
+    private static final Map<BookingState, StateQuery> BOOKER_QUERIES = Map.of(
+            BookingState.ALL, (repository, userId, now, pageable) ->
+                    repository.findResponsesByBookerId(userId, pageable),
+            BookingState.FUTURE, (repository, userId, now, pageable) ->
+                    repository.findFutureResponsesByBookerId(userId, now, pageable),
+            BookingState.CURRENT, (repository, userId, now, pageable) ->
+                    repository.findCurrentResponsesByBookerId(userId, now, now.plusSeconds(1), pageable),
+            BookingState.PAST, (repository, userId, now, pageable) ->
+                    repository.findPastResponsesByBookerId(userId, now, pageable),
+            BookingState.WAITING, (repository, userId, now, pageable) ->
+                    repository.findResponsesByBookerIdAndStatus(userId, BookingStatus.WAITING, pageable),
+            BookingState.REJECTED, (repository, userId, now, pageable) ->
+                    repository.findResponsesByBookerIdAndStatus(userId, BookingStatus.REJECTED, pageable));
+
+    private static final Map<BookingState, StateQuery> OWNER_QUERIES = Map.of(
+            BookingState.ALL, (repository, userId, now, pageable) ->
+                    repository.findResponsesByItemOwnerId(userId, pageable),
+            BookingState.FUTURE, (repository, userId, now, pageable) ->
+                    repository.findResponsesByItemOwnerIdAndStatusIn(userId,
+                            List.of(BookingStatus.APPROVED, BookingStatus.WAITING), pageable),
+            BookingState.CURRENT, (repository, userId, now, pageable) ->
+                    repository.findCurrentResponsesByItemOwnerId(userId, now, now.plusSeconds(1), pageable),
+            BookingState.PAST, (repository, userId, now, pageable) ->
+                    repository.findPastResponsesByItemOwnerId(userId, now, pageable),
+            BookingState.WAITING, (repository, userId, now, pageable) ->
+                    repository.findResponsesByItemOwnerIdAndStatus(userId, BookingStatus.WAITING, pageable),
+            BookingState.REJECTED, (repository, userId, now, pageable) ->
+                    repository.findResponsesByItemOwnerIdAndStatus(userId, BookingStatus.REJECTED, pageable));
 
     @Override
     public BookingResponseDto save(BookingDto bookingDto, long userId) throws ShareItNotFoundException, ValidationException {
-        User user = userRepository.findById(userId)
+        userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
 
         Item item = itemRepository.findById(bookingDto.getItemId())
@@ -46,38 +104,145 @@ public class BookingServiceImpl implements BookingService {
         if (bookingDto.getEnd().isBefore(bookingDto.getStart())) {
             throw new ValidationException("Ошибка в дате бронирования.");
         }
-        if (item.getOwner().equals(user)) {
+        if (item.getOwner().getId() == userId) {
             throw new ShareItNotFoundException("Пользователь вещи не может ее забронировать.");
         }
 
         Booking booking = BookingMapper.toBooking(bookingDto);
         booking.setItem(item);
-        booking.setBooker(user);
+        booking.setBooker(userRepository.getReferenceById(userId));
+        booking.setItemOwnerId(item.getOwner().getId());
         booking.setStatus(BookingStatus.WAITING);
 
-        booking = bookingRepository.save(booking);
+        booking = bookingConflictIndex.reserve(booking, bookingRepository::save);
+        itemBookingSummary.invalidate(item.getId());
 
-        return BookingMapper.toBookingResponseDto(booking);
+        BookingResponseDto response = BookingMapper.toBookingResponseDto(booking);
+        bookingEventPublisher.publish(item.getOwner().getId(), response);
+        return response;
     }
 
     @Override
     public BookingResponseDto update(long bookingId, long ownerId, boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new ShareItNotFoundException(BOOKING_NOT_FOUND));
+        BookingStatus target = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        for (int attempt = 0; attempt < MAX_TRANSITION_ATTEMPTS; attempt++) {
+            BookingResponseDto booking = bookingRepository.findResponseByIdAndItemOwnerId(bookingId, ownerId)
+                    .orElseThrow(() -> new ShareItNotFoundException(BOOKING_NOT_FOUND));
+            if (!booking.getStatus().canBecome(target)) {
+                throw new ValidationException("Недопустимая смена статуса бронирования.");
+            }
+            if (transition(booking, target)) {
+                itemBookingSummary.invalidate(booking.getItem().getId());
+                booking.setStatus(target);
+                bookingEventPublisher.publish(ownerId, booking);
+                return booking;
+            }
+        }
+        throw new ValidationException("Статус бронирования изменился, повторите запрос.");
+    }
 
-        if (booking.getItem().getOwner().getId() != ownerId) {
-            throw new ShareItNotFoundException("Менять статус может только владелец.");
+    // Applies the change as a single UPDATE guarded by the status that was just read;
+    // returns false when a concurrent request changed the status first.
+    private boolean transition(BookingResponseDto booking, BookingStatus target) {
+        BooleanSupplier update = () ->
+                bookingRepository.updateStatus(booking.getId(), target, booking.getStatus()) == 1;
+        long itemId = booking.getItem().getId();
+        if (target == BookingStatus.APPROVED) {
+            return bookingConflictIndex.approve(booking.getId(), itemId, booking.getStart(), booking.getEnd(), update);
         }
-        if (approved) {
-            if (booking.getStatus() == BookingStatus.APPROVED) {
-                throw new ValidationException("Второе подтверждение статуса.");
+        return bookingConflictIndex.release(booking.getId(), itemId, update);
+    }
+
+    @Override
+    public List<BookingDecisionResultDto> updateAll(BookingDecisionDto decision, long ownerId) {
+        userCache.find(ownerId)
+                .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+        Map<Long, DecisionResult> decided = new HashMap<>();
+        Map<Long, BookingOwnership> owned = decision.getApproved()
+                ? approveAll(decision.getBookingIds(), ownerId, decided)
+                : rejectAll(decision.getBookingIds(), ownerId, decided);
+
+        Set<Long> updatedIds = decided.entrySet().stream()
+                .filter(entry -> entry.getValue() == DecisionResult.UPDATED)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        if (!updatedIds.isEmpty()) {
+            itemBookingSummary.invalidate(updatedIds.stream()
+                    .map(id -> owned.get(id).getItemId())
+                    .collect(Collectors.toSet()));
+            if (bookingEventPublisher.hasSubscribers(ownerId)) {
+                bookingEventPublisher.publishAll(ownerId, bookingRepository.findResponsesByIdIn(updatedIds));
             }
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
         }
-        booking = bookingRepository.save(booking);
-        return BookingMapper.toBookingResponseDto(booking);
+
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        for (Long bookingId : new LinkedHashSet<>(decision.getBookingIds())) {
+            DecisionResult result;
+            if (!owned.containsKey(bookingId)) {
+                result = DecisionResult.NOT_FOUND;
+            } else {
+                result = decided.getOrDefault(bookingId, DecisionResult.NOT_WAITING);
+            }
+            results.add(new BookingDecisionResultDto(bookingId, result));
+        }
+        return results;
+    }
+
+    // Approvals go one by one through the item's interval index, so each is checked against the item's
+    // approved bookings and the ones approved before it, and only rows this call moved out of WAITING
+    // are reported as updated.
+    private Map<Long, BookingOwnership> approveAll(List<Long> bookingIds, long ownerId,
+                                                   Map<Long, DecisionResult> decided) {
+        Map<Long, BookingOwnership> owned = ownedBy(ownerId, bookingRepository.findOwnershipByIdIn(bookingIds));
+        Map<Long, List<BookingOwnership>> waitingByItem = owned.values().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                .sorted(Comparator.comparing(BookingOwnership::getStart).thenComparing(BookingOwnership::getId))
+                .collect(Collectors.groupingBy(BookingOwnership::getItemId, LinkedHashMap::new, Collectors.toList()));
+        waitingByItem.forEach((itemId, bookings) -> bookingConflictIndex.withLock(itemId, () -> {
+            bookings.forEach(booking -> decided.put(booking.getId(), approve(booking)));
+            return null;
+        }));
+        return owned;
+    }
+
+    // Rejections need no conflict check, so they are one update. The rows are locked as they are read,
+    // so the ones read as WAITING are exactly the ones the update moves.
+    private Map<Long, BookingOwnership> rejectAll(List<Long> bookingIds, long ownerId,
+                                                  Map<Long, DecisionResult> decided) {
+        return transactionTemplate.execute(transaction -> {
+            Map<Long, BookingOwnership> owned = ownedBy(ownerId,
+                    bookingRepository.findOwnershipByIdInForUpdate(bookingIds));
+            Map<Long, List<Long>> waitingByItem = owned.values().stream()
+                    .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                    .collect(Collectors.groupingBy(BookingOwnership::getItemId,
+                            Collectors.mapping(BookingOwnership::getId, Collectors.toList())));
+            if (!waitingByItem.isEmpty()) {
+                List<Long> waitingIds = waitingByItem.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+                bookingRepository.updateStatusByIdIn(waitingIds, BookingStatus.REJECTED, BookingStatus.WAITING);
+                waitingIds.forEach(id -> decided.put(id, DecisionResult.UPDATED));
+                AfterCommit.run(() -> bookingConflictIndex.remove(waitingByItem));
+            }
+            return owned;
+        });
+    }
+
+    private DecisionResult approve(BookingOwnership booking) {
+        try {
+            boolean updated = bookingConflictIndex.approve(booking.getId(), booking.getItemId(),
+                    booking.getStart(), booking.getEnd(), () -> bookingRepository.updateStatus(booking.getId(),
+                            BookingStatus.APPROVED, BookingStatus.WAITING) == 1);
+            return updated ? DecisionResult.UPDATED : DecisionResult.NOT_WAITING;
+        } catch (ValidationException e) {
+            return DecisionResult.CONFLICT;
+        }
+    }
+
+    private static Map<Long, BookingOwnership> ownedBy(long ownerId, List<BookingOwnership> bookings) {
+        return bookings.stream()
+                .filter(booking -> booking.getOwnerId() == ownerId)
+                .collect(Collectors.toMap(BookingOwnership::getId, booking -> booking));
     }
 
     @Override
@@ -85,10 +250,10 @@ public class BookingServiceImpl implements BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ShareItNotFoundException(BOOKING_NOT_FOUND));
 
-        User user = userRepository.findById(userId)
+        userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
 
-        if (booking.getBooker().equals(user) || booking.getItem().getOwner().equals(user)) {
+        if (booking.getBooker().getId() == userId || booking.getItem().getOwner().getId() == userId) {
             return BookingMapper.toBookingResponseDto(booking);
         } else {
             throw new ShareItNotFoundException("Просматривать вещь может или пользователь, " +
@@ -98,93 +263,92 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> findByState(String state, long userId, Integer from, Integer size) {
-        User booker = userRepository.findById(userId)
+        UserDto booker = userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
 
-        if (state.equals("ALL")) {
-            Pageable pageable = FromSizeRequest.of(from, size);
-            return bookingRepository.findAllByBookerOrderByStartDesc(booker, pageable)
-                    .stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        if (state.equals("FUTURE")) {
-            return bookingRepository
-                    .findAllByBookerIdAndStartAfterOrderByStartDesc(userId,
-                            LocalDateTime.now()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        if (state.equals("CURRENT")) {
-            return bookingRepository.findAllByBookerAndEndIsAfterAndStartIsBefore(booker,
-                            LocalDateTime.now(),
-                            LocalDateTime.now().plusSeconds(1)
-                    ).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        if (state.equals("PAST")) {
-            return bookingRepository.findAllByBookerAndEndIsBefore(booker, LocalDateTime.now()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        if (state.equals("WAITING")) {
-            return bookingRepository.findAllByBookerAndStatusOrderByStartDesc(booker, BookingStatus.WAITING)
-                    .stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        if (state.equals("REJECTED")) {
-            return bookingRepository.findAllByBookerAndStatusOrderByStartDesc(booker, BookingStatus.REJECTED)
-                    .stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
-        }
-        throw new UnsupportedStatus("Неправильное именование статуса бронирования.");
+        return BOOKER_QUERIES.get(BookingState.from(state))
+                .find(bookingRepository, booker.getId(), LocalDateTime.now(), FromSizeRequest.of(from, size));
     }
 
     @Override
     public List<BookingResponseDto> findOwnerItems(String state, long userId, Integer from, Integer size) {
-        User owner = userRepository.findById(userId)
+        UserDto owner = userCache.find(userId)
+                .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+
+        return OWNER_QUERIES.get(BookingState.from(state))
+                .find(bookingRepository, owner.getId(), LocalDateTime.now(), FromSizeRequest.of(from, size));
+    }
+
+    @Override
+    public BookingPageDto findByStateAfterCursor(String state, long userId, String cursor, Integer size) {
+        UserDto booker = userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+        checkCursorState(state);
 
-        if (state.equals("ALL")) {
-            Pageable pageable = FromSizeRequest.of(from, size);
-            return bookingRepository.findAllByItemOwnerOrderByStartDesc(owner, pageable).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+        Pageable pageable = PageRequest.of(0, size);
+        List<BookingResponseDto> bookings;
+        if (cursor.isEmpty()) {
+            bookings = bookingRepository.findResponsesByBookerId(booker.getId(), pageable);
+        } else {
+            SeekCursor seekCursor = SeekCursor.decode(cursor);
+            bookings = bookingRepository.findResponsesByBookerIdAfterCursor(booker.getId(),
+                    seekCursor.getStart(), seekCursor.getId(), pageable);
         }
-        if (state.equals("FUTURE")) {
-            return bookingRepository.findAllByOwnerAndStatusFutureOrderByStartDesc(userId,
-                            BookingStatus.APPROVED.name(),
-                            BookingStatus.WAITING.name()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+        return toBookingPageDto(bookings, size);
+    }
+
+    @Override
+    public BookingPageDto findOwnerItemsAfterCursor(String state, long userId, String cursor, Integer size) {
+        UserDto owner = userCache.find(userId)
+                .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+        checkCursorState(state);
+
+        Pageable pageable = PageRequest.of(0, size);
+        List<BookingResponseDto> bookings;
+        if (cursor.isEmpty()) {
+            bookings = bookingRepository.findResponsesByItemOwnerId(owner.getId(), pageable);
+        } else {
+            SeekCursor seekCursor = SeekCursor.decode(cursor);
+            bookings = bookingRepository.findResponsesByItemOwnerIdAfterCursor(owner.getId(),
+                    seekCursor.getStart(), seekCursor.getId(), pageable);
         }
-        if (state.equals("CURRENT")) {
-            return bookingRepository.findAllByOwnerAndEndIsAfterAndStartIsBefore(userId,
-                            LocalDateTime.now(),
-                            LocalDateTime.now().plusSeconds(1)
-                    ).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+        return toBookingPageDto(bookings, size);
+    }
+
+    @Override
+    public StreamingResponseBody exportOwnerBookings(long userId) {
+        if (userCache.find(userId).isEmpty()) {
+            throw new ShareItNotFoundException(USER_NOT_FOUND);
         }
-        if (state.equals("PAST")) {
-            return bookingRepository.findAllByOwnerAndEndIsBefore(userId, LocalDateTime.now()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+        return ndjsonExporter.export(() -> bookingRepository.streamResponsesByItemOwnerId(userId));
+    }
+
+    @Override
+    public SseEmitter subscribeOwnerEvents(long userId) {
+        if (userCache.find(userId).isEmpty()) {
+            throw new ShareItNotFoundException(USER_NOT_FOUND);
         }
-        if (state.equals("WAITING")) {
-            return bookingRepository.findAllByItemOwnerAndStatusOrderByStartDesc(userId, BookingStatus.WAITING.name()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+        return bookingEventPublisher.subscribe(userId);
+    }
+
+    private void checkCursorState(String state) {
+        if (BookingState.from(state) != BookingState.ALL) {
+            throw new UnsupportedStatus("Постраничный вывод по курсору поддерживается только для статуса ALL.");
         }
-        if (state.equals("REJECTED")) {
-            return bookingRepository.findAllByItemOwnerAndStatusOrderByStartDesc(userId, BookingStatus.REJECTED.name()).stream()
-                    .map(BookingMapper::toBookingResponseDto)
-                    .collect(Collectors.toList());
+    }
+
+    @FunctionalInterface
+    private interface StateQuery {
+        List<BookingResponseDto> find(BookingRepository repository, long userId, LocalDateTime now, Pageable pageable);
+    }
+
+    private BookingPageDto toBookingPageDto(List<BookingResponseDto> bookings, int size) {
+        String nextCursor = null;
+        if (bookings.size() == size) {
+            BookingResponseDto last = bookings.get(bookings.size() - 1);
+            nextCursor = new SeekCursor(last.getStart(), last.getId()).encode();
         }
-        throw new UnsupportedStatus("Неправильное именование статуса бронирования.");
+        return new BookingPageDto(bookings, nextCursor);
     }
 
 }
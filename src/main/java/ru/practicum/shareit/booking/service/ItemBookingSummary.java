@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.ConcurrentLruCache;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last and next booking per item, kept in memory so item reads don't query BOOKINGS.
+ * Booking writes invalidate the item's entry, and an entry whose next booking has already started
+ * is treated as missing, so it is rebuilt on the first read after the time rollover.
+ * Bounded by max-size with least-recently-used eviction.
+ */
+@Service
+public class ItemBookingSummary {
+    private final BookingRepository bookingRepository;
+    private final ConcurrentLruCache<Long, Entry> entries;
+
+    public ItemBookingSummary(BookingRepository bookingRepository,
+                              @Value("${shareit.booking.summary.max-size}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.entries = new ConcurrentLruCache<>(maxSize, "shareit.booking.summary", meterRegistry);
+    }
+
+    public Entry get(long itemId) {
+        return get(List.of(itemId)).get(itemId);
+    }
+
+    public Map<Long, Entry> get(Collection<Long> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        return entries.getAll(itemIds, entry -> !entry.isStale(now), missing -> load(missing, now));
+    }
+
+    public void invalidate(long itemId) {
+        entries.invalidate(itemId);
+    }
+
+    public void invalidate(Collection<Long> itemIds) {
+        itemIds.forEach(entries::invalidate);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    private Map<Long, Entry> load(List<Long> itemIds, LocalDateTime now) {
+        Map<Long, BookingDto> last = firstByItemId(bookingRepository.findLastByItemIdIn(itemIds, now));
+        Map<Long, BookingDto> next = firstByItemId(bookingRepository.findNextByItemIdIn(itemIds, now));
+
+        Map<Long, Entry> loaded = new HashMap<>();
+        for (Long itemId : itemIds) {
+            loaded.put(itemId, new Entry(last.get(itemId), next.get(itemId)));
+        }
+        return loaded;
+    }
+
+    private Map<Long, BookingDto> firstByItemId(List<BookingDto> bookings) {
+        Map<Long, BookingDto> byItemId = new HashMap<>();
+        for (BookingDto booking : bookings) {
+            byItemId.putIfAbsent(booking.getItemId(), booking);
+        }
+        return byItemId;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+        private final BookingDto lastBooking;
+        private final BookingDto nextBooking;
+
+        private boolean isStale(LocalDateTime now) {
+            return nextBooking != null && !nextBooking.getStart().isAfter(now);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache on a {@link ConcurrentHashMap}, bounded by max-size with approximate least-recently-used
+ * eviction. A hit takes no lock: it only stamps the entry with the time of access. Once the size passes
+ * max-size, one writer drops the least recently used entries down to a tenth below the bound, so the sort
+ * behind it runs once per tenth of max-size inserts.
+ * A load first puts a placeholder for its key and only replaces that placeholder with the value, so
+ * invalidating the key while it loads keeps the old value from being stored, without affecting other keys.
+ */
+public final class ConcurrentLruCache<K, V> {
+    private final int maxSize;
+    private final Map<K, Node<V>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+
+    /**
+     * @param name metric prefix, e.g. {@code shareit.user.cache} for {@code shareit.user.cache.hits}
+     */
+    public ConcurrentLruCache(int maxSize, String name, MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.hits = meterRegistry.counter(name + ".hits");
+        this.misses = meterRegistry.counter(name + ".misses");
+        this.sizeEvictions = meterRegistry.counter(name + ".evictions", "cause", "size");
+    }
+
+    /**
+     * The cached value if it passes {@code valid}, else the loader's value, which is stored unless it is null.
+     */
+    public V get(K key, Predicate<? super V> valid, Function<? super K, ? extends V> loader) {
+        return getAll(List.of(key), valid, missing -> {
+            V value = loader.apply(key);
+            return value == null ? Map.of() : Map.of(key, value);
+        }).get(key);
+    }
+
+    /**
+     * Like {@link #get} for several keys, with one loader call for all the keys that missed.
+     * Keys the loader leaves out are not cached and are absent from the result.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Predicate<? super V> valid,
+                            Function<List<K>, Map<K, ? extends V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Map<K, Node<V>> placeholders = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            Node<V> node = nodes.get(key);
+            if (node != null && node.value != null && valid.test(node.value)) {
+                node.accessed = System.nanoTime();
+                hits.increment();
+                result.put(key, node.value);
+                continue;
+            }
+            misses.increment();
+            missing.add(key);
+            Node<V> placeholder = new Node<>(null);
+            // Leave another load's placeholder alone: that load stores its value, this one is only returned.
+            boolean placed = node == null ? nodes.putIfAbsent(key, placeholder) == null
+                    : node.value != null && nodes.replace(key, node, placeholder);
+            if (placed) {
+                placeholders.put(key, placeholder);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<K, ? extends V> loaded;
+        try {
+            loaded = loader.apply(missing);
+        } catch (RuntimeException e) {
+            placeholders.forEach(nodes::remove);
+            throw e;
+        }
+        placeholders.forEach((key, placeholder) -> {
+            V value = loaded.get(key);
+            if (value == null || maxSize <= 0) {
+                nodes.remove(key, placeholder);
+            } else {
+                nodes.replace(key, placeholder, new Node<>(value));
+            }
+        });
+        result.putAll(loaded);
+        trim();
+        return result;
+    }
+
+    public void invalidate(K key) {
+        nodes.remove(key);
+    }
+
+    public void invalidateAll() {
+        nodes.clear();
+    }
+
+    private void trim() {
+        if (nodes.size() <= maxSize || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int overflow = nodes.size() - maxSize;
+            if (overflow <= 0) {
+                return;
+            }
+            int evict = overflow + maxSize / 10;
+            // Stamps are copied first: hits keep updating them, and a sort needs keys that hold still.
+            List<Candidate<K, V>> candidates = new ArrayList<>(nodes.size());
+            nodes.forEach((key, node) -> candidates.add(new Candidate<>(key, node, node.accessed)));
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.accessed));
+            for (int i = 0; i < evict && i < candidates.size(); i++) {
+                if (nodes.remove(candidates.get(i).key, candidates.get(i).node)) {
+                    sizeEvictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // A null value marks a load in progress.
+    private static final class Node<V> {
+        private final V value;
+        private volatile long accessed = System.nanoTime();
+
+        private Node(V value) {
+            this.value = value;
+        }
+    }
+
+    private static final class Candidate<K, V> {
+        private final K key;
+        private final Node<V> node;
+        private final long accessed;
+
+        private Candidate(K key, Node<V> node, long accessed) {
+            this.key = key;
+            this.node = node;
+            this.accessed = accessed;
+        }
+    }
+}
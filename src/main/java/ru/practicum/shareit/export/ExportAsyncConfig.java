@@ -0,0 +1,44 @@
+package ru.practicum.shareit.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Gives NDJSON exports their own async timeout, long enough for a large export to finish;
+ * every other async request keeps the default one.
+ */
+@Configuration
+public class ExportAsyncConfig implements WebMvcConfigurer {
+    private final long timeoutMillis;
+
+    public ExportAsyncConfig(@Value("${shareit.export.timeout}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            // Runs once the streaming body's headers are written and before async processing starts,
+            // so the content type tells an export apart and the timeout can still be changed.
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                HttpServletResponse response = request.getNativeResponse(HttpServletResponse.class);
+                if (request instanceof AsyncWebRequest && response != null && response.getContentType() != null
+                        && MediaType.APPLICATION_NDJSON.isCompatibleWith(
+                                MediaType.parseMediaType(response.getContentType()))) {
+                    ((AsyncWebRequest) request).setTimeout(timeoutMillis);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository stream as newline-delimited JSON, one row per line.
+ * The stream is opened inside a read-only transaction on the response thread and rows go straight
+ * to the response, so memory use doesn't grow with the row count.
+ */
+@Service
+public class NdjsonExporter {
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final TransactionTemplate transactionTemplate;
+
+    public NdjsonExporter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody export(Supplier<Stream<T>> rows) {
+        return out -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<T> stream = rows.get();
+                         JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                        generator.setRootValueSeparator(null);
+                        for (T row : (Iterable<T>) stream::iterator) {
+                            writer.writeValue(generator, row);
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.handler;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -78,6 +79,12 @@ public class ErrorHandler {
         return Map.of(ERROR, "DataIntegrityViolationException");
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        return Map.of(ERROR, "OptimisticLockingFailureException");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleUnsupportedStatus(final UnsupportedStatus e) {
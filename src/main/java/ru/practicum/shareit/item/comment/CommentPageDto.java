@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.comment;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CommentPageDto {
+
+    private List<CommentDto> comments;
+
+    private String nextCursor;
+}
@@ -1,15 +1,43 @@
 package ru.practicum.shareit.item.comment;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> getCommentsByItem_idOrderByCreatedDesc(long itemId);
+    String SELECT_DTO = "SELECT new ru.practicum.shareit.item.comment.CommentDto(" +
+            "C.id, C.text, C.item.id, C.author.name, C.created) FROM Comment C ";
+    String ORDER_BY_CREATED = "ORDER BY C.created DESC, C.id DESC";
 
     Optional<Comment> findByItem_IdAndAuthor_Id(long itemId, long authorId);
+
+    @Query(SELECT_DTO +
+            "WHERE C.item.id = ?1 " +
+            ORDER_BY_CREATED)
+    List<CommentDto> findDtosByItemId(long itemId, Pageable pageable);
+
+    @Query(SELECT_DTO +
+            "WHERE C.item.id = ?1 " +
+            "AND (C.created < ?2 OR (C.created = ?2 AND C.id < ?3)) " +
+            ORDER_BY_CREATED)
+    List<CommentDto> findDtosByItemIdAfterCursor(long itemId, LocalDateTime created, long id, Pageable pageable);
+
+    @Query(value = "SELECT R.ID FROM (SELECT C.ID, ROW_NUMBER() OVER " +
+            "(PARTITION BY C.ITEM_ID ORDER BY C.CREATED DESC, C.ID DESC) AS RN " +
+            "FROM COMMENTS C WHERE C.ITEM_ID IN ?1) R " +
+            "WHERE R.RN <= ?2", nativeQuery = true)
+    List<Number> findLatestIdsByItemIdIn(Collection<Long> itemIds, int perItem);
+
+    @Query(SELECT_DTO +
+            "WHERE C.id IN ?1 " +
+            ORDER_BY_CREATED)
+    List<CommentDto> findDtosByIdIn(Collection<Long> ids);
 }
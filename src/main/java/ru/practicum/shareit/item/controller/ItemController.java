@@ -1,22 +1,35 @@
 package ru.practicum.shareit.item.controller;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.comment.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.dto.ItemTag;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
 import ru.practicum.shareit.item.service.ItemService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
+@Validated
 public class ItemController {
 
     private final ItemService itemService;
@@ -26,10 +39,16 @@ public class ItemController {
         return itemService.save(itemDto, userId);
     }
 
+    @PostMapping("/bulk")
+    public List<ItemImportResultDto> saveAll(@RequestBody List<ItemDto> itemDtos,
+                                             @RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemService.saveAll(itemDtos, userId);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@RequestBody Map<Object,Object> fields,
                               @PathVariable long itemId,
-                              @RequestHeader("X-Sharer-User-Id") long userId) throws JsonMappingException {
+                              @RequestHeader("X-Sharer-User-Id") long userId) {
         return itemService.update(fields, itemId, userId);
     }
 
@@ -40,8 +59,13 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ItemResponseDto findById(@PathVariable long itemId,
-                                        @RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemService.findById(itemId, userId);
+                                        @RequestHeader("X-Sharer-User-Id") long userId,
+                                        WebRequest webRequest) {
+        ItemTag tag = itemService.getTag(itemId, userId);
+        if (webRequest.checkNotModified(tag.getETag())) {
+            return null;
+        }
+        return itemService.findById(tag);
     }
 
     @GetMapping
@@ -51,6 +75,13 @@ public class ItemController {
         return itemService.findAllItemsByUserId(userId, from, size);
     }
 
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportItems(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(itemService.exportItems(userId));
+    }
+
     @GetMapping("/search")
     public List<ItemDto> search(@RequestParam String text,
                                 @PositiveOrZero @RequestParam(required = false, defaultValue = "0") Integer from,
@@ -58,6 +89,28 @@ public class ItemController {
         return itemService.search(text, from, size);
     }
 
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix,
+                                @Positive @Max(ItemNameSuggester.MAX_SUGGESTIONS)
+                                @RequestParam(required = false, defaultValue = "10") Integer size) {
+        return itemService.suggest(prefix, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(
+            @PathVariable long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public CommentPageDto findComments(@PathVariable long itemId,
+                                       @RequestParam(defaultValue = "") String cursor,
+                                       @Positive @RequestParam(required = false, defaultValue = "20") Integer size) {
+        return itemService.findComments(itemId, cursor, size);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto postComment(@PathVariable long itemId,
                                   @RequestHeader("X-Sharer-User-Id") long userId,
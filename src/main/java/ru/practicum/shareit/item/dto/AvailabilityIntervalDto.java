@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class AvailabilityIntervalDto {
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private Boolean available;
+}
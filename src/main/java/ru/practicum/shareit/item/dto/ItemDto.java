@@ -6,6 +6,7 @@ import lombok.Setter;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 @Getter
 @Setter
@@ -16,10 +17,12 @@ public class ItemDto {
 
     @NotBlank
     @NotNull
+    @Size(max = 255)
     private String name;
 
     @NotBlank
     @NotNull
+    @Size(max = 1024)
     private String description;
 
     @NotNull
@@ -26,4 +26,6 @@ public class ItemResponseDto {
     private BookingDto nextBooking;
 
     private List<CommentDto> comments;
+
+    private int commentCount;
 }
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+/**
+ * What an item's ETag is computed from, handed on to the body load so it doesn't look the item up again.
+ * The bookings are set only when the caller owns the item.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemTag {
+
+    private final long itemId;
+
+    private final long version;
+
+    private final boolean owner;
+
+    private final BookingDto lastBooking;
+
+    private final BookingDto nextBooking;
+
+    public String getETag() {
+        if (!owner) {
+            return "\"" + version + "\"";
+        }
+        return "\"" + version + "-" + bookingTag(lastBooking) + "-" + bookingTag(nextBooking) + "\"";
+    }
+
+    private static String bookingTag(BookingDto booking) {
+        return booking == null ? "0" : booking.getId() + "." + booking.getStatus();
+    }
+}
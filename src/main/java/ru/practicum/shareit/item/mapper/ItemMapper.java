@@ -2,8 +2,7 @@ package ru.practicum.shareit.item.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.comment.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemForRequestDto;
@@ -39,17 +38,33 @@ public class ItemMapper {
     }
 
     public static ItemResponseDto toItemResponseDto(Item item,
-                                                    Booking lastBooking,
-                                                    Booking nextBooking,
+                                                    BookingDto lastBooking,
+                                                    BookingDto nextBooking,
                                                     List<CommentDto> comments) {
         return new ItemResponseDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable(),
-                lastBooking == null ? null : BookingMapper.toBookingDto(lastBooking),
-                nextBooking == null ? null : BookingMapper.toBookingDto(nextBooking),
-                comments
+                lastBooking,
+                nextBooking,
+                comments,
+                item.getCommentCount()
+        );
+    }
+
+    public static ItemResponseDto toItemResponseDto(ItemResponseDto view,
+                                                    BookingDto lastBooking,
+                                                    BookingDto nextBooking) {
+        return new ItemResponseDto(
+                view.getId(),
+                view.getName(),
+                view.getDescription(),
+                view.getAvailable(),
+                lastBooking,
+                nextBooking,
+                view.getComments(),
+                view.getCommentCount()
         );
     }
 
@@ -2,24 +2,89 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemForRequestDto;
+import ru.practicum.shareit.item.dto.ItemText;
+import ru.practicum.shareit.item.dto.ItemVersion;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
+    @EntityGraph(attributePaths = {"owner", "request", "request.requestor"})
     Page<Item> findAllByOwnerIdOrderByIdAsc(Long userId, Pageable pageable);
 
-    @Query(value = "SELECT * FROM ITEMS I " +
-            "WHERE (lower(I.NAME) LIKE lower(concat('%', :name, '%')) " +
-            "OR lower(I.DESCRIPTION) LIKE lower(concat('%', :description, '%'))" +
-            "AND I.AVAILABLE = TRUE)", nativeQuery = true)
-    Page<Item> findAllByNameAndDescriptionLowerCase(String name, String description, Pageable pageable);
+    @Query("SELECT I.id FROM Item I " +
+            "WHERE I.available = TRUE " +
+            "AND (lower(I.name) LIKE ?1 ESCAPE '\\' OR lower(I.description) LIKE ?1 ESCAPE '\\') " +
+            "ORDER BY I.id")
+    List<Long> searchIds(String pattern, Pageable pageable);
 
-    List<Item> findAllByRequest_IdOrderByRequestIdDesc(long requestId);
+    @Query(value = "SELECT I.ID FROM ITEMS I " +
+            "WHERE I.AVAILABLE = TRUE " +
+            "AND (lower(I.NAME) LIKE ?2 OR lower(I.DESCRIPTION) LIKE ?2 " +
+            "OR to_tsvector('simple', I.NAME || ' ' || I.DESCRIPTION) @@ plainto_tsquery('simple', ?1)) " +
+            "ORDER BY ts_rank(to_tsvector('simple', I.NAME || ' ' || I.DESCRIPTION), " +
+            "plainto_tsquery('simple', ?1)) DESC, similarity(lower(I.NAME), ?1) DESC, I.ID " +
+            "LIMIT ?3 OFFSET ?4", nativeQuery = true)
+    List<Number> searchRankedIds(String text, String pattern, int limit, int offset);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE Item I SET I.commentCount = I.commentCount + 1, I.version = I.version + 1 WHERE I.id = ?1")
+    int incrementCommentCount(long itemId);
+
+    // Run before deleting a user: the database cascade removes their comments on other owners' items too.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ITEMS SET VERSION = VERSION + 1, COMMENT_COUNT = COMMENT_COUNT - " +
+            "(SELECT COUNT(*) FROM COMMENTS C WHERE C.ITEM_ID = ITEMS.ID AND C.AUTHOR_ID = ?1) " +
+            "WHERE ID IN (SELECT C.ITEM_ID FROM COMMENTS C WHERE C.AUTHOR_ID = ?1)", nativeQuery = true)
+    int decrementCommentCountsByAuthorId(long authorId);
+
+    // Item views embed comments with the author's name.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Item I SET I.version = I.version + 1 " +
+            "WHERE I.id IN (SELECT C.item.id FROM Comment C WHERE C.author.id = ?1)")
+    int incrementVersionByCommentAuthorId(long authorId);
+
+    // A bulk delete: removing the entity would cascade to its owner and the request it answers.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Item I WHERE I.id = ?1")
+    int deleteItemById(long itemId);
+
+    @Query("SELECT I.owner.id AS ownerId, I.version AS version FROM Item I WHERE I.id = ?1")
+    Optional<ItemVersion> findVersionById(long itemId);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemForRequestDto(" +
+            "I.id, I.name, I.description, I.available, I.request.id) FROM Item I " +
+            "WHERE I.request.id IN ?1 " +
+            "ORDER BY I.id")
+    List<ItemForRequestDto> findForRequestDtosByRequestIdIn(Collection<Long> requestIds);
+
+    @Query("SELECT I.id AS id, I.name AS name, I.description AS description, I.available AS available, " +
+            "I.owner.id AS ownerId FROM Item I")
+    List<ItemText> findAllTexts();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(I.id, I.name, I.description, I.available, " +
+            "COALESCE(R.id, 0L)) FROM Item I LEFT JOIN I.request R " +
+            "WHERE I.owner.id = ?1 " +
+            "ORDER BY I.id")
+    Stream<ItemDto> streamDtosByOwnerId(long ownerId);
 }
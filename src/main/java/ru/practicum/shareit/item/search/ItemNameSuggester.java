@@ -0,0 +1,250 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Names of available items in a trie keyed by their lower-cased form, for prefix suggestions.
+ * Every node keeps the most common names below it, so a lookup is a walk down the prefix and a copy.
+ * A node's list is merged from the names ending at it and its children's lists, and a write re-ranks
+ * only the nodes on the written name's path.
+ */
+@Service
+@RequiredArgsConstructor
+public class ItemNameSuggester {
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final Map<Long, Name> namesById = new HashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            remove(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                add(new Name(item.getId(), item.getOwner().getId(), item.getName()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Collection<Long> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteByOwner(long ownerId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> owned = new ArrayList<>();
+            namesById.values().forEach(name -> {
+                if (name.ownerId == ownerId) {
+                    owned.add(name.id);
+                }
+            });
+            owned.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@link #MAX_SUGGESTIONS} distinct names starting with the prefix, ignoring case,
+     * most items first, then alphabetically.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (!loaded) {
+            ensureLoaded();
+        }
+        String key = normalise(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            List<String> result = new ArrayList<>();
+            if (node != null) {
+                for (Suggestion suggestion : node.top) {
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                    result.add(suggestion.name);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Counts every name first and ranks each node once, bottom-up, instead of re-ranking a path per item.
+    private void load() {
+        root.clear();
+        namesById.clear();
+        itemRepository.findAllTexts().forEach(text -> {
+            if (Boolean.TRUE.equals(text.getAvailable())) {
+                Name name = new Name(text.getId(), text.getOwnerId(), text.getName());
+                namesById.put(name.id, name);
+                path(name.key).get(name.key.length()).count(name.name, 1);
+            }
+        });
+        root.rankAll("");
+        loaded = true;
+    }
+
+    private void add(Name name) {
+        namesById.put(name.id, name);
+        update(name, 1);
+    }
+
+    private void remove(long id) {
+        Name name = namesById.remove(id);
+        if (name != null) {
+            update(name, -1);
+        }
+    }
+
+    private void update(Name name, int delta) {
+        List<Node> path = path(name.key);
+        path.get(name.key.length()).count(name.name, delta);
+        for (int depth = name.key.length(); depth >= 0; depth--) {
+            Node node = path.get(depth);
+            if (depth > 0 && node.isEmpty()) {
+                path.get(depth - 1).children.remove(name.key.charAt(depth - 1));
+            } else {
+                node.rank(name.key.substring(0, depth));
+            }
+        }
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static String normalise(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        // Item count per display name whose lower-cased form ends at this node
+        private final Map<String, Integer> counts = new HashMap<>();
+        private List<Suggestion> top = List.of();
+
+        private void count(String name, int delta) {
+            counts.merge(name, delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+
+        private boolean isEmpty() {
+            return counts.isEmpty() && children.isEmpty();
+        }
+
+        // A name in this subtree's top list is in the top list of the child subtree holding it,
+        // so merging the children's lists is enough.
+        private void rank(String key) {
+            List<Suggestion> candidates = new ArrayList<>();
+            counts.forEach((name, count) -> candidates.add(new Suggestion(name, key, count)));
+            children.values().forEach(child -> candidates.addAll(child.top));
+            candidates.sort(Suggestion.ORDER);
+            top = candidates.size() > MAX_SUGGESTIONS
+                    ? List.copyOf(candidates.subList(0, MAX_SUGGESTIONS))
+                    : List.copyOf(candidates);
+        }
+
+        private void rankAll(String key) {
+            children.forEach((c, child) -> child.rankAll(key + c));
+            rank(key);
+        }
+
+        private void clear() {
+            children.clear();
+            counts.clear();
+            top = List.of();
+        }
+    }
+
+    private static final class Name {
+        private final long id;
+        private final long ownerId;
+        private final String name;
+        private final String key;
+
+        private Name(long id, long ownerId, String name) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.name = name;
+            this.key = normalise(name);
+        }
+    }
+
+    private static final class Suggestion {
+        private static final Comparator<Suggestion> ORDER = Comparator
+                .comparingInt((Suggestion suggestion) -> suggestion.count).reversed()
+                .thenComparing(suggestion -> suggestion.key)
+                .thenComparing(suggestion -> suggestion.name);
+
+        private final String name;
+        private final String key;
+        private final int count;
+
+        private Suggestion(String name, String key, int count) {
+            this.name = name;
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Backend behind /items/search, picked with shareit.search.mode (memory or database).
+ */
+public interface ItemSearch {
+
+    /**
+     * Ids of available items matching the text, best match first, starting at offset.
+     */
+    List<Long> search(String text, int offset, int limit);
+
+    void put(Item item);
+
+    void delete(Collection<Long> itemIds);
+}
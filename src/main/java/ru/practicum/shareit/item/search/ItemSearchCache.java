@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.cache.ConcurrentLruCache;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search result pages keyed by (lower-cased text, from, size).
+ * Entries are dropped least-recently-used once max-size is reached and after ttl.
+ * Any item write can change any page, so writes clear the whole cache; a page still loading when
+ * that happens is not stored.
+ */
+@Service
+public class ItemSearchCache {
+    private final long ttlNanos;
+    private final ConcurrentLruCache<Key, Page> pages;
+    private final Counter expiredEvictions;
+
+    public ItemSearchCache(@Value("${shareit.search.cache.max-size}") int maxSize,
+                           @Value("${shareit.search.cache.ttl}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.ttlNanos = ttl.toNanos();
+        this.pages = new ConcurrentLruCache<>(maxSize, "shareit.search.cache", meterRegistry);
+        this.expiredEvictions = meterRegistry.counter("shareit.search.cache.evictions", "cause", "expired");
+    }
+
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> search) {
+        Key key = new Key(text.toLowerCase(Locale.ROOT), from, size);
+        long now = System.nanoTime();
+        Page page = pages.get(key, cached -> {
+            if (cached.isExpired(now)) {
+                expiredEvictions.increment();
+                return false;
+            }
+            return true;
+        }, missing -> new Page(List.copyOf(search.get()), System.nanoTime() + ttlNanos));
+        return page.items;
+    }
+
+    public void invalidateAll() {
+        pages.invalidateAll();
+    }
+
+    private static final class Key {
+        private final String text;
+        private final int from;
+        private final int size;
+
+        private Key(String text, int from, int size) {
+            this.text = text;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return from == key.from && size == key.size && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, from, size);
+        }
+    }
+
+    private static final class Page {
+        private final List<ItemDto> items;
+        private final long expiresAt;
+
+        private Page(List<ItemDto> items, long expiresAt) {
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over item name and description.
+ * Candidates from the posting lists are checked against the stored text, so a hit is always a real
+ * case-insensitive substring match, same as the LIKE query it replaces. Queries shorter than a trigram
+ * scan the stored texts directly.
+ */
+@Service
+@ConditionalOnProperty(name = "shareit.search.mode", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ItemSearchIndex implements ItemSearch {
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            remove(item.getId());
+            add(new Document(item.getId(), item.getName(), item.getDescription(),
+                    Boolean.TRUE.equals(item.getAvailable())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Collection<Long> itemIds) {
+        lock.writeLock().lock();
+        try {
+            itemIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> search(String text, int offset, int limit) {
+        if (!loaded) {
+            ensureLoaded();
+        }
+        String query = normalise(text);
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = query.length() < GRAM ? documents.keySet() : candidates(query);
+            List<Long> matches = new ArrayList<>();
+            for (Long id : candidates) {
+                Document document = documents.get(id);
+                if (document.available && document.matches(query)) {
+                    matches.add(id);
+                }
+            }
+            Collections.sort(matches);
+            if (offset >= matches.size()) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<>(matches.subList(offset, Math.min(matches.size(), offset + limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        documents.clear();
+        postings.clear();
+        itemRepository.findAllTexts().forEach(text -> add(new Document(text.getId(), text.getName(),
+                text.getDescription(), Boolean.TRUE.equals(text.getAvailable()))));
+        loaded = true;
+    }
+
+    private Collection<Long> candidates(String query) {
+        Set<String> grams = grams(query);
+        Set<Long> smallest = null;
+        for (String gram : grams) {
+            Set<Long> posting = postings.getOrDefault(gram, Collections.emptySet());
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        Set<Long> result = new HashSet<>(smallest);
+        for (String gram : grams) {
+            result.retainAll(postings.getOrDefault(gram, Collections.emptySet()));
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void add(Document document) {
+        documents.put(document.id, document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id);
+        }
+    }
+
+    private void remove(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams()) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static String normalise(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Document {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private Document(long id, String name, String description, boolean available) {
+            this.id = id;
+            this.name = normalise(name);
+            this.description = normalise(description);
+            this.available = available;
+        }
+
+        private boolean matches(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = ItemSearchIndex.grams(name);
+            grams.addAll(ItemSearchIndex.grams(description));
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pageable.FromSizeRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Database search for the H2 profiles, where neither tsvector nor pg_trgm is available.
+ */
+@Service
+@Profile({"ci", "test"})
+@ConditionalOnProperty(name = "shareit.search.mode", havingValue = "database")
+@RequiredArgsConstructor
+public class LikeItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Long> search(String text, int offset, int limit) {
+        return itemRepository.searchIds(containsPattern(text.toLowerCase(Locale.ROOT)),
+                FromSizeRequest.of(offset, limit));
+    }
+
+    @Override
+    public void put(Item item) {
+    }
+
+    @Override
+    public void delete(Collection<Long> itemIds) {
+    }
+
+    static String containsPattern(String text) {
+        return "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
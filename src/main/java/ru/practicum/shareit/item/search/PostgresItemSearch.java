@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text plus trigram search on PostgreSQL, backed by the GIN indexes in schema-postgresql.sql.
+ */
+@Service
+@Profile("!ci & !test")
+@ConditionalOnProperty(name = "shareit.search.mode", havingValue = "database")
+@RequiredArgsConstructor
+public class PostgresItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Long> search(String text, int offset, int limit) {
+        String query = text.toLowerCase(Locale.ROOT);
+        return itemRepository.searchRankedIds(query, LikeItemSearch.containsPattern(query), limit, offset).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void put(Item item) {
+    }
+
+    @Override
+    public void delete(Collection<Long> itemIds) {
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.cache.ConcurrentLruCache;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the item view without booking fields (item plus comments), bounded by max-size
+ * with least-recently-used eviction. Owner-only booking fields are added by the caller on each read.
+ * Entries carry the item's row version and are only served for the version the caller has just read.
+ */
+@Service
+public class ItemDetailCache {
+    private final ConcurrentLruCache<Long, Entry> entries;
+
+    public ItemDetailCache(@Value("${shareit.item.cache.max-size}") int maxSize, MeterRegistry meterRegistry) {
+        this.entries = new ConcurrentLruCache<>(maxSize, "shareit.item.cache", meterRegistry);
+    }
+
+    public Entry get(long itemId, long version, Supplier<Entry> loader) {
+        return entries.get(itemId, entry -> entry.getVersion() == version, id -> loader.get());
+    }
+
+    public void invalidate(long itemId) {
+        entries.invalidate(itemId);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+        private final long version;
+        private final ItemResponseDto view;
+    }
+}
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.item.service;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.comment.CommentDto;
+import ru.practicum.shareit.item.comment.CommentPageDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.dto.ItemTag;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -12,17 +17,27 @@ import java.util.Map;
 public interface ItemService {
     ItemDto save(ItemDto itemDto, long userId);
 
-    ItemDto update(Map<Object,Object> fields, long itemId, long userId) throws JsonMappingException;
+    List<ItemImportResultDto> saveAll(List<ItemDto> itemDtos, long userId);
+
+    ItemDto update(Map<Object,Object> fields, long itemId, long userId);
 
     void deleteItem(long itemId);
 
-    ItemResponseDto findById(long itemId, long userId);
+    ItemTag getTag(long itemId, long userId);
+
+    ItemResponseDto findById(ItemTag tag);
 
     List<ItemResponseDto> findAllItemsByUserId(long userId, Integer from, Integer size);
 
+    StreamingResponseBody exportItems(long userId);
+
     List<ItemDto> search(String text, Integer from, Integer size);
 
+    List<String> suggest(String prefix, Integer size);
+
     CommentDto postComment(long itemId, long userId, CommentDto text);
 
-    List<CommentDto> getAllCommentsByItem(long itemId);
+    CommentPageDto findComments(long itemId, String cursor, Integer size);
+
+    ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
 }
@@ -1,28 +1,51 @@
 package ru.practicum.shareit.item.service;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
 import ru.practicum.shareit.booking.enums.BookingStatus;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemBookingSummary;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
+import ru.practicum.shareit.export.NdjsonExporter;
 import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDto;
-import ru.practicum.shareit.item.comment.CommentMapper;
+import ru.practicum.shareit.item.comment.CommentPageDto;
 import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.dto.ItemTag;
+import ru.practicum.shareit.item.dto.ItemVersion;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.pageable.SeekCursor;
+import ru.practicum.shareit.patch.PatchApplier;
+import ru.practicum.shareit.request.matching.RequestMatch;
+import ru.practicum.shareit.request.matching.RequestMatchPublisher;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+import ru.practicum.shareit.request.model.dto.OpenRequest;
+import ru.practicum.shareit.request.model.entity.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
+import javax.validation.ConstraintViolation;
 import javax.validation.ValidationException;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,18 +55,39 @@ import java.util.stream.Collectors;
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final RequestRepository requestRepository;
-    private final ObjectMapper objectMapper;
+    private final ItemBookingSummary itemBookingSummary;
+    private final ItemSearch itemSearch;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemDetailCache itemDetailCache;
+    private final NdjsonExporter ndjsonExporter;
+    private final RequestMatcher requestMatcher;
+    private final RequestMatchPublisher requestMatchPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private static final int MAX_IMPORT_SIZE = 1000;
+    private static final int INLINE_COMMENTS = 10;
+    private static final PatchApplier<Item> ITEM_PATCH = PatchApplier.<Item>builder()
+            .ignore("id")
+            .string("name", 255, Item::setName)
+            .string("description", 1024, Item::setDescription)
+            .bool("available", Item::setAvailable)
+            .build();
     private static final String USER_NOT_FOUND = "Пользователя с указанным Id не существует.";
     private static final String ITEM_NOT_FOUND = "Вещь с указанным Id не существует.";
     private static final String REQUEST_NOT_FOUND = "Запрос вещи с указанным Id не существует.";
+    private static final String IMPORT_FAILED = "Не удалось сохранить вещь.";
 
     @Override
+    @Transactional
     public ItemDto save(ItemDto itemDto, long userId) {
-        User owner = userRepository.findById(userId)
+        userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+        User owner = userRepository.getReferenceById(userId);
         Item item;
         if (itemDto.getRequestId() == null) {
             item = ItemMapper.toItem(itemDto, owner, null);
@@ -53,98 +97,358 @@ public class ItemServiceImpl implements ItemService {
         }
 
         itemRepository.save(item);
-        return ItemMapper.toItemDto(item);
+        if (item.getRequest() != null) {
+            requestRepository.incrementVersionByIdIn(List.of(item.getRequest().getId()));
+        }
+        ItemDto saved = ItemMapper.toItemDto(item);
+        List<RequestMatch> matches = requestMatcher.match(item);
+        AfterCommit.run(() -> {
+            itemSearch.put(item);
+            itemNameSuggester.put(item);
+            itemSearchCache.invalidateAll();
+            if (item.getRequest() != null) {
+                requestMatcher.close(List.of(item.getRequest().getId()));
+            }
+        });
+        requestMatchPublisher.publish(saved, userId, matches);
+        return saved;
+    }
+
+    @Override
+    public List<ItemImportResultDto> saveAll(List<ItemDto> itemDtos, long userId) {
+        if (itemDtos.size() > MAX_IMPORT_SIZE) {
+            throw new ValidationException("За один запрос можно добавить не более " + MAX_IMPORT_SIZE + " вещей.");
+        }
+        userCache.find(userId)
+                .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+
+        Set<Long> requestIds = itemDtos.stream()
+                .filter(Objects::nonNull)
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingRequestIds = requestRepository.findAllById(requestIds).stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toSet());
+
+        List<ItemImportResultDto> results = new ArrayList<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            if (itemDto == null) {
+                results.add(new ItemImportResultDto(i, null, "Пустая запись."));
+                continue;
+            }
+            Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+            if (!violations.isEmpty()) {
+                results.add(new ItemImportResultDto(i, null, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "))));
+                continue;
+            }
+            if (itemDto.getRequestId() != null && !existingRequestIds.contains(itemDto.getRequestId())) {
+                results.add(new ItemImportResultDto(i, null, REQUEST_NOT_FOUND));
+                continue;
+            }
+            accepted.add(i);
+            results.add(new ItemImportResultDto(i, null, null));
+        }
+
+        try {
+            insert(accepted, itemDtos, results, userId);
+        } catch (DataAccessException e) {
+            // A row the database refused rolled back the whole batch; retry row by row so the rest still go in.
+            for (Integer index : accepted) {
+                try {
+                    insert(List.of(index), itemDtos, results, userId);
+                } catch (DataAccessException rowError) {
+                    results.get(index).setError(IMPORT_FAILED);
+                }
+            }
+        }
+        return results;
+    }
+
+    // Inserts the rows at the given indexes in one transaction and fills in their results once it commits.
+    private void insert(List<Integer> indexes, List<ItemDto> itemDtos, List<ItemImportResultDto> results,
+                        long userId) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<Item> items = transactionTemplate.execute(status -> {
+            User owner = userRepository.getReferenceById(userId);
+            List<Item> batch = new ArrayList<>();
+            for (Integer index : indexes) {
+                ItemDto itemDto = itemDtos.get(index);
+                ItemRequest request = itemDto.getRequestId() == null ? null
+                        : requestRepository.getReferenceById(itemDto.getRequestId());
+                batch.add(ItemMapper.toItem(itemDto, owner, request));
+            }
+
+            // Ids come from the pooled ITEMS_SEQ, so the inserts are sent in JDBC batches on flush.
+            itemRepository.saveAll(batch);
+            itemRepository.flush();
+
+            Set<Long> answeredRequestIds = batch.stream()
+                    .filter(item -> item.getRequest() != null)
+                    .map(item -> item.getRequest().getId())
+                    .collect(Collectors.toSet());
+            if (!answeredRequestIds.isEmpty()) {
+                requestRepository.incrementVersionByIdIn(answeredRequestIds);
+            }
+            AfterCommit.run(() -> {
+                batch.forEach(item -> {
+                    itemSearch.put(item);
+                    itemNameSuggester.put(item);
+                });
+                itemSearchCache.invalidateAll();
+                requestMatcher.close(answeredRequestIds);
+            });
+            return batch;
+        });
+
+        for (int i = 0; i < indexes.size(); i++) {
+            results.get(indexes.get(i)).setItem(ItemMapper.toItemDto(items.get(i)));
+        }
     }
 
     @Override
-    public ItemDto update(Map<Object,Object> fields, long itemId, long userId) throws JsonMappingException {
+    @Transactional
+    public ItemDto update(Map<Object,Object> fields, long itemId, long userId) {
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new ShareItNotFoundException(ITEM_NOT_FOUND));
 
         if (item.getOwner().getId() != userId) {
             throw new ShareItNotFoundException("Обновлять вещь может только ее владелец.");
         }
 
-        Item updateItem = itemRepository.save(objectMapper.updateValue(item, fields));
-        return ItemMapper.toItemDto(updateItem);
+        ITEM_PATCH.apply(item, fields);
+        itemRepository.flush();
+        if (item.getRequest() != null) {
+            requestRepository.incrementVersionByIdIn(List.of(item.getRequest().getId()));
+        }
+        AfterCommit.run(() -> {
+            itemSearch.put(item);
+            itemNameSuggester.put(item);
+            itemDetailCache.invalidate(itemId);
+            itemSearchCache.invalidateAll();
+        });
+        return ItemMapper.toItemDto(item);
     }
 
     @Override
+    @Transactional
     public void deleteItem(long itemId) {
-        itemRepository.deleteById(itemId);
+        Long requestId = itemRepository.findById(itemId)
+                .map(Item::getRequest)
+                .map(ItemRequest::getId)
+                .orElse(null);
+        itemRepository.deleteItemById(itemId);
+        if (requestId != null) {
+            requestRepository.incrementVersionByIdIn(List.of(requestId));
+        }
+        List<OpenRequest> reopened = requestId == null
+                ? List.of()
+                : requestRepository.findOpenRequestsByIdIn(List.of(requestId));
+        AfterCommit.run(() -> {
+            itemSearch.delete(List.of(itemId));
+            itemNameSuggester.delete(List.of(itemId));
+            itemDetailCache.invalidate(itemId);
+            itemSearchCache.invalidateAll();
+            itemBookingSummary.invalidate(itemId);
+            requestMatcher.reopen(reopened);
+        });
     }
 
     @Override
-    public ItemResponseDto findById(long itemId, long userId) {
-        Item item = itemRepository.findById(itemId)
+    public ItemTag getTag(long itemId, long userId) {
+        ItemVersion version = itemRepository.findVersionById(itemId)
                 .orElseThrow(() -> new ShareItNotFoundException(ITEM_NOT_FOUND));
 
-        User user  = userRepository.findById(userId)
-                .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
+        if (version.getOwnerId() == userId) {
+            ItemBookingSummary.Entry bookings = itemBookingSummary.get(itemId);
+            return new ItemTag(itemId, version.getVersion(), true,
+                    bookings.getLastBooking(), bookings.getNextBooking());
+        }
+        if (userCache.find(userId).isEmpty()) {
+            throw new ShareItNotFoundException(USER_NOT_FOUND);
+        }
+        return new ItemTag(itemId, version.getVersion(), false, null, null);
+    }
+
+    @Override
+    public ItemResponseDto findById(ItemTag tag) {
+        long itemId = tag.getItemId();
+        ItemDetailCache.Entry entry = itemDetailCache.get(itemId, tag.getVersion(), () -> loadDetails(itemId));
 
-        List<CommentDto> comments = CommentMapper
-                .toCommentDtos(commentRepository.getCommentsByItem_idOrderByCreatedDesc(itemId));
-        if (user.equals(item.getOwner())) {
-            Booking lastBooking = bookingRepository.findFirstByItemIdAndStartBeforeOrderByStartDesc(itemId, LocalDateTime.now());
-            Booking nextBooking = bookingRepository.findFirstByItemIdAndStartAfterOrderByStart(itemId, LocalDateTime.now());
-            return ItemMapper.toItemResponseDto(item, lastBooking, nextBooking, comments);
+        if (tag.isOwner()) {
+            return ItemMapper.toItemResponseDto(entry.getView(), tag.getLastBooking(), tag.getNextBooking());
         }
-        return ItemMapper.toItemResponseDto(item, null, null, comments);
+        return entry.getView();
+    }
+
+    private ItemDetailCache.Entry loadDetails(long itemId) {
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new ShareItNotFoundException(ITEM_NOT_FOUND));
+
+        List<CommentDto> comments = commentRepository.findDtosByItemId(itemId, PageRequest.of(0, INLINE_COMMENTS));
+        return new ItemDetailCache.Entry(item.getVersion(),
+                ItemMapper.toItemResponseDto(item, null, null, List.copyOf(comments)));
     }
 
     @Override
     public List<ItemResponseDto> findAllItemsByUserId(long userId, Integer from, Integer size) {
-        List<ItemResponseDto> itemResponseDtos = new ArrayList<>();
-        User owner  = userRepository.findById(userId)
+        UserDto owner = userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
 
-        Page<Item> items = itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId(), PageRequest.of(from, size));
+        List<Item> items = itemRepository.findAllByOwnerIdOrderByIdAsc(owner.getId(), PageRequest.of(from, size))
+                .getContent();
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+
+        List<Long> commentIds = commentRepository.findLatestIdsByItemIdIn(itemIds, INLINE_COMMENTS).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        Map<Long, List<CommentDto>> comments = commentIds.isEmpty() ? Collections.emptyMap()
+                : commentRepository.findDtosByIdIn(commentIds).stream()
+                        .collect(Collectors.groupingBy(CommentDto::getItemId));
+        Map<Long, ItemBookingSummary.Entry> bookings = itemBookingSummary.get(itemIds);
+
+        List<ItemResponseDto> itemResponseDtos = new ArrayList<>();
         for (Item item : items) {
-            List<CommentDto> comments = CommentMapper
-                    .toCommentDtos(commentRepository.getCommentsByItem_idOrderByCreatedDesc(item.getId()));
+            ItemBookingSummary.Entry itemBookings = bookings.get(item.getId());
             itemResponseDtos.add(ItemMapper.toItemResponseDto(item,
-                    bookingRepository.findFirstByItemIdAndStartBeforeOrderByStartDesc(item.getId(), LocalDateTime.now()),
-                    bookingRepository.findFirstByItemIdAndStartAfterOrderByStart(item.getId(), LocalDateTime.now()),
-                    comments));
+                    itemBookings.getLastBooking(),
+                    itemBookings.getNextBooking(),
+                    comments.getOrDefault(item.getId(), Collections.emptyList())));
         }
         return itemResponseDtos;
     }
 
+    @Override
+    public StreamingResponseBody exportItems(long userId) {
+        if (userCache.find(userId).isEmpty()) {
+            throw new ShareItNotFoundException(USER_NOT_FOUND);
+        }
+        return ndjsonExporter.export(() -> itemRepository.streamDtosByOwnerId(userId));
+    }
+
     @Override
     public List<ItemDto> search(String text, Integer from, Integer size) {
-        if (!text.isEmpty()) {
-            return itemRepository.findAllByNameAndDescriptionLowerCase(text, text, PageRequest.of(from, size)).stream()
-                    .map(ItemMapper::toItemDto).collect(Collectors.toList());
+        if (text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemSearchCache.get(text, from, size, () -> searchPage(text, from, size));
+    }
+
+    private List<ItemDto> searchPage(String text, int from, int size) {
+        List<Long> ids = itemSearch.search(text, from * size, size);
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        if (items.size() < ids.size()) {
+            // Items removed by a cascading user delete are still indexed; drop them and re-run the page.
+            itemSearch.delete(ids.stream().filter(id -> !items.containsKey(id)).collect(Collectors.toList()));
+            return searchPage(text, from, size);
+        }
+        return ids.stream()
+                .map(items::get)
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> suggest(String prefix, Integer size) {
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
         }
-        return Collections.emptyList();
+        return itemNameSuggester.suggest(prefix, size);
     }
 
+    @Transactional
     public CommentDto postComment(long itemId, long userId, CommentDto commentDto) {
         if (!bookingRepository.existsBookingByItemIdAndBookerIdAndEndBeforeAndStatusNotLike(itemId, userId, LocalDateTime.now(),
                 BookingStatus.REJECTED)) {
             throw new ValidationException("Комментарий может оставлять только пользователь, который бронировал данную вещь.");
         }
-        User user = userRepository.findById(userId)
+        UserDto author = userCache.find(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
 
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ShareItNotFoundException(ITEM_NOT_FOUND));
 
         Comment comment = new Comment();
-        comment.setAuthor(user);
+        comment.setAuthor(userRepository.getReferenceById(userId));
         comment.setItem(item);
         comment.setText(commentDto.getText());
 
         comment = commentRepository.save(comment);
-        return CommentMapper.toCommentDto(comment);
+        itemRepository.incrementCommentCount(itemId);
+        itemDetailCache.invalidate(itemId);
+        return new CommentDto(comment.getId(), comment.getText(), itemId, author.getName(), comment.getCreated());
+    }
+
+    @Override
+    public CommentPageDto findComments(long itemId, String cursor, Integer size) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new ShareItNotFoundException(ITEM_NOT_FOUND);
+        }
+        PageRequest pageable = PageRequest.of(0, size);
+        List<CommentDto> comments;
+        if (cursor.isEmpty()) {
+            comments = commentRepository.findDtosByItemId(itemId, pageable);
+        } else {
+            SeekCursor seekCursor = SeekCursor.decode(cursor);
+            comments = commentRepository.findDtosByItemIdAfterCursor(itemId, seekCursor.getStart(),
+                    seekCursor.getId(), pageable);
+        }
+        String nextCursor = null;
+        if (comments.size() == size) {
+            CommentDto last = comments.get(comments.size() - 1);
+            nextCursor = new SeekCursor(last.getCreated(), last.getId()).encode();
+        }
+        return new CommentPageDto(comments, nextCursor);
     }
 
     @Override
-    public List<CommentDto> getAllCommentsByItem(long itemId) {
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания.");
+        }
         if (!itemRepository.existsById(itemId)) {
             throw new ShareItNotFoundException(ITEM_NOT_FOUND);
         }
-        List<Comment> comments = commentRepository.getCommentsByItem_idOrderByCreatedDesc(itemId);
-        return comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList());
+        List<BookingPeriod> periods = bookingRepository.findAllByItemIdAndStatusInAndStartBeforeAndEndAfterOrderByStart(
+                itemId, List.of(BookingStatus.WAITING, BookingStatus.APPROVED), to, from);
+
+        List<AvailabilityIntervalDto> intervals = new ArrayList<>();
+        LocalDateTime cursor = from;
+        LocalDateTime busyStart = null;
+        for (BookingPeriod period : periods) {
+            LocalDateTime start = period.getStart().isBefore(from) ? from : period.getStart();
+            LocalDateTime end = period.getEnd().isAfter(to) ? to : period.getEnd();
+            if (busyStart != null && start.isAfter(cursor)) {
+                intervals.add(new AvailabilityIntervalDto(busyStart, cursor, false));
+                busyStart = null;
+            }
+            if (busyStart == null) {
+                if (start.isAfter(cursor)) {
+                    intervals.add(new AvailabilityIntervalDto(cursor, start, true));
+                }
+                busyStart = start;
+            }
+            if (end.isAfter(cursor)) {
+                cursor = end;
+            }
+        }
+        if (busyStart != null) {
+            intervals.add(new AvailabilityIntervalDto(busyStart, cursor, false));
+        }
+        if (cursor.isBefore(to)) {
+            intervals.add(new AvailabilityIntervalDto(cursor, to, true));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, intervals);
     }
 
 }
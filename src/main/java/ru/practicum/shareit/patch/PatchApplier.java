@@ -0,0 +1,117 @@
+package ru.practicum.shareit.patch;
+
+import javax.validation.ValidationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a PATCH body to an entity through a fixed set of setters declared once per entity.
+ * The whole body is checked before anything is set, so a bad field leaves the entity untouched.
+ * Together with @DynamicUpdate only the columns that actually changed are written.
+ */
+public final class PatchApplier<T> {
+    private final Map<String, FieldPatch<T>> fields;
+    private final Set<String> ignored;
+
+    private PatchApplier(Map<String, FieldPatch<T>> fields, Set<String> ignored) {
+        this.fields = Map.copyOf(fields);
+        this.ignored = Set.copyOf(ignored);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public void apply(T target, Map<?, ?> patch) throws ValidationException {
+        List<Runnable> setters = new ArrayList<>();
+        for (Map.Entry<?, ?> entry : patch.entrySet()) {
+            String name = String.valueOf(entry.getKey());
+            if (ignored.contains(name)) {
+                continue;
+            }
+            FieldPatch<T> field = fields.get(name);
+            if (field == null) {
+                throw new ValidationException("Поле " + name + " не может быть изменено.");
+            }
+            Object value = field.convert(name, entry.getValue());
+            setters.add(() -> field.setter.accept(target, value));
+        }
+        setters.forEach(Runnable::run);
+    }
+
+    private static final class FieldPatch<T> {
+        private final Class<?> type;
+        private final int maxLength;
+        private final Pattern pattern;
+        private final BiConsumer<T, Object> setter;
+
+        private FieldPatch(Class<?> type, int maxLength, Pattern pattern, BiConsumer<T, Object> setter) {
+            this.type = type;
+            this.maxLength = maxLength;
+            this.pattern = pattern;
+            this.setter = setter;
+        }
+
+        private Object convert(String name, Object value) {
+            if (value == null) {
+                throw new ValidationException("Поле " + name + " не может быть пустым.");
+            }
+            if (!type.isInstance(value)) {
+                throw new ValidationException("Поле " + name + " имеет неверный тип.");
+            }
+            if (value instanceof String) {
+                String text = (String) value;
+                if (text.isBlank() || text.length() > maxLength) {
+                    throw new ValidationException("Поле " + name + " должно содержать от 1 до " + maxLength
+                            + " символов.");
+                }
+                if (pattern != null && !pattern.matcher(text).matches()) {
+                    throw new ValidationException("Поле " + name + " имеет неверный формат.");
+                }
+            }
+            return value;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final Map<String, FieldPatch<T>> fields = new HashMap<>();
+        private final Set<String> ignored = new HashSet<>();
+
+        private Builder() {
+        }
+
+        public Builder<T> string(String name, int maxLength, BiConsumer<T, String> setter) {
+            return string(name, maxLength, null, setter);
+        }
+
+        public Builder<T> string(String name, int maxLength, String regexp, BiConsumer<T, String> setter) {
+            fields.put(name, new FieldPatch<>(String.class, maxLength, regexp == null ? null : Pattern.compile(regexp),
+                    (target, value) -> setter.accept(target, (String) value)));
+            return this;
+        }
+
+        public Builder<T> bool(String name, BiConsumer<T, Boolean> setter) {
+            fields.put(name, new FieldPatch<>(Boolean.class, 0, null,
+                    (target, value) -> setter.accept(target, (Boolean) value)));
+            return this;
+        }
+
+        /**
+         * Accepted in the body but never applied, e.g. the id that clients echo back.
+         */
+        public Builder<T> ignore(String name) {
+            ignored.add(name);
+            return this;
+        }
+
+        public PatchApplier<T> build() {
+            return new PatchApplier<>(fields, ignored);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.model.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.dto.RequestPageDto;
+import ru.practicum.shareit.request.model.dto.RequestTag;
 import ru.practicum.shareit.request.model.dto.RequestWithResponseDto;
 import ru.practicum.shareit.request.service.RequestService;
 
@@ -11,6 +17,7 @@ import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@Validated
 @RequestMapping(path = "/requests")
 public class ItemRequestController {
 
@@ -30,6 +37,14 @@ public class ItemRequestController {
         return requestService.getAllResponsesForAllRequests(userId, from, size);
     }
 
+    @GetMapping(params = "cursor")
+    public RequestPageDto getAllResponsesAfterCursor(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String cursor,
+            @RequestParam(required = false, defaultValue = "100") @Min(1) Integer size) {
+        return requestService.getAllResponsesAfterCursor(userId, cursor, size);
+    }
+
     @GetMapping("/all")
     public List<RequestWithResponseDto> getAllRequestsByUserId(
             @RequestHeader("X-Sharer-User-Id") long userId,
@@ -38,9 +53,27 @@ public class ItemRequestController {
         return requestService.getAllRequestsOtherUsers(userId, from, size);
     }
 
+    @GetMapping(path = "/all", params = "cursor")
+    public RequestPageDto getAllRequestsAfterCursor(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String cursor,
+            @RequestParam(required = false, defaultValue = "100") @Min(1) Integer size) {
+        return requestService.getAllRequestsOtherUsersAfterCursor(userId, cursor, size);
+    }
+
+    @GetMapping(path = "/matches", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMatches(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return requestService.subscribeToMatches(userId);
+    }
+
     @GetMapping("/{requestId}")
     public RequestWithResponseDto getRequestById(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                 @PathVariable long requestId) {
-        return requestService.getRequestById(userId, requestId);
+                                                 @PathVariable long requestId,
+                                                 WebRequest webRequest) {
+        RequestTag tag = requestService.getTag(userId, requestId);
+        if (webRequest.checkNotModified(tag.getETag())) {
+            return null;
+        }
+        return requestService.getRequestById(tag);
     }
 }
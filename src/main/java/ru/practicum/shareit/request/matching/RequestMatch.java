@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RequestMatch {
+
+    private final long requestId;
+
+    private final long requestorId;
+
+    private final String description;
+}
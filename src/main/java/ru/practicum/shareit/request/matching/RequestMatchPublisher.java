@@ -0,0 +1,64 @@
+package ru.practicum.shareit.request.matching;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.model.dto.RequestMatchDto;
+import ru.practicum.shareit.stream.SseBroadcaster;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams request matches, served by GET /requests/matches.
+ * Each match is sent to the request's author as a "match" event; the owner of the new item gets
+ * all of the item's matches in one "matches" event.
+ */
+@Service
+public class RequestMatchPublisher {
+    private final SseBroadcaster broadcaster;
+
+    public RequestMatchPublisher(@Value("${shareit.request.matches.timeout}") Duration timeout,
+                                 @Value("${shareit.request.matches.buffer-size}") int bufferSize,
+                                 @Value("${shareit.request.matches.dispatcher-threads}") int dispatcherThreads,
+                                 MeterRegistry meterRegistry) {
+        this.broadcaster = new SseBroadcaster("request-matches", "match", timeout, bufferSize, dispatcherThreads,
+                meterRegistry);
+    }
+
+    public SseEmitter subscribe(long userId) {
+        return broadcaster.subscribe(userId);
+    }
+
+    public void publish(ItemDto item, long ownerId, List<RequestMatch> matches) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        List<RequestMatchDto> dtos = new ArrayList<>();
+        for (RequestMatch match : matches) {
+            RequestMatchDto dto = new RequestMatchDto(match.getRequestId(), match.getDescription(), item);
+            broadcaster.publish(match.getRequestorId(), dto);
+            dtos.add(dto);
+        }
+        broadcaster.publish(ownerId, "matches", dtos);
+    }
+
+    public void disconnect(long userId) {
+        broadcaster.disconnect(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.stream.keep-alive-interval}")
+    public void keepAlive() {
+        broadcaster.keepAlive();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+}
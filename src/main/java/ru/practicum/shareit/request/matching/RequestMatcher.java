@@ -0,0 +1,234 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.dto.OpenRequest;
+import ru.practicum.shareit.request.model.entity.ItemRequest;
+import ru.practicum.shareit.request.repository.RequestRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keyword index of open requests, i.e. requests no item has answered yet.
+ * A new item is looked up by the words of its name and description; requests sharing more words
+ * with the item come first. Answering a request closes it; deleting the last item answering it reopens it.
+ */
+@Service
+@RequiredArgsConstructor
+public class RequestMatcher {
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int MAX_MATCHES = 20;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "with", "need", "want", "any", "some",
+            "для", "или", "нужен", "нужна", "нужно", "нужны", "ищу", "кто", "есть");
+
+    private final RequestRepository requestRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Request> requests = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(ItemRequest request) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            remove(request.getId());
+            add(new Request(request.getId(), request.getRequestor().getId(), request.getDescription()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void close(Collection<Long> requestIds) {
+        lock.writeLock().lock();
+        try {
+            requestIds.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void reopen(Collection<OpenRequest> reopened) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            reopened.forEach(request -> {
+                remove(request.getId());
+                add(new Request(request.getId(), request.getRequestorId(), request.getDescription()));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void deleteByRequestor(long requestorId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> owned = requests.values().stream()
+                    .filter(request -> request.requestorId == requestorId)
+                    .map(request -> request.id)
+                    .collect(Collectors.toList());
+            owned.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Requests the item may satisfy: the request it answers directly, if any, followed by open requests
+     * of other users sharing words with an available item, best first.
+     */
+    public List<RequestMatch> match(Item item) {
+        if (!loaded) {
+            ensureLoaded();
+        }
+        List<RequestMatch> matches = new ArrayList<>();
+        Long answeredId = null;
+        if (item.getRequest() != null) {
+            ItemRequest answered = item.getRequest();
+            answeredId = answered.getId();
+            matches.add(new RequestMatch(answered.getId(), answered.getRequestor().getId(),
+                    answered.getDescription()));
+        }
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return matches;
+        }
+
+        long ownerId = item.getOwner().getId();
+        Map<Long, Integer> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String word : words(item.getName() + " " + item.getDescription())) {
+                for (Long requestId : postings.getOrDefault(word, Set.of())) {
+                    scores.merge(requestId, 1, Integer::sum);
+                }
+            }
+            if (answeredId != null) {
+                scores.remove(answeredId);
+            }
+            scores.entrySet().stream()
+                    .map(score -> new Scored(requests.get(score.getKey()), score.getValue()))
+                    .filter(scored -> scored.request.requestorId != ownerId)
+                    .sorted(Scored.ORDER)
+                    .limit(MAX_MATCHES)
+                    .forEach(scored -> matches.add(new RequestMatch(scored.request.id, scored.request.requestorId,
+                            scored.request.description)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    private void ensureLoaded() {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        requests.clear();
+        postings.clear();
+        requestRepository.findOpenRequests().forEach(request ->
+                add(new Request(request.getId(), request.getRequestorId(), request.getDescription())));
+        loaded = true;
+    }
+
+    private void add(Request request) {
+        requests.put(request.id, request);
+        for (String word : request.words) {
+            postings.computeIfAbsent(word, key -> new HashSet<>()).add(request.id);
+        }
+    }
+
+    private void remove(long id) {
+        Request request = requests.remove(id);
+        if (request == null) {
+            return;
+        }
+        for (String word : request.words) {
+            Set<Long> ids = postings.get(word);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= MIN_WORD_LENGTH && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static final class Request {
+        private final long id;
+        private final long requestorId;
+        private final String description;
+        private final Set<String> words;
+
+        private Request(long id, long requestorId, String description) {
+            this.id = id;
+            this.requestorId = requestorId;
+            this.description = description;
+            this.words = words(description);
+        }
+    }
+
+    private static final class Scored {
+        private static final Comparator<Scored> ORDER = Comparator
+                .comparingInt((Scored scored) -> scored.score).reversed()
+                .thenComparing(Comparator.comparingLong((Scored scored) -> scored.request.id).reversed());
+
+        private final Request request;
+        private final int score;
+
+        private Scored(Request request, int score) {
+            this.request = request;
+            this.score = score;
+        }
+    }
+}
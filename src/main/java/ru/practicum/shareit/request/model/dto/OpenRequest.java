@@ -0,0 +1,10 @@
+package ru.practicum.shareit.request.model.dto;
+
+public interface OpenRequest {
+
+    Long getId();
+
+    Long getRequestorId();
+
+    String getDescription();
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.request.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestMatchDto {
+
+    private long requestId;
+
+    private String requestDescription;
+
+    private ItemDto item;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class RequestPageDto {
+
+    private List<RequestWithResponseDto> requests;
+
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.request.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What a request's ETag is computed from, handed on to the body load so it doesn't check the user again.
+ */
+@Getter
+@AllArgsConstructor
+public class RequestTag {
+
+    private final long requestId;
+
+    private final long version;
+
+    public String getETag() {
+        return "\"" + version + "\"";
+    }
+}
@@ -28,4 +28,8 @@ public class ItemRequest {
 
     @Column(name = "CREATED")
     private LocalDateTime created;
+
+    @Version
+    @Column(name = "VERSION")
+    private long version;
 }
@@ -2,18 +2,72 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.request.model.dto.OpenRequest;
 import ru.practicum.shareit.request.model.entity.ItemRequest;
-import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface RequestRepository extends JpaRepository<ItemRequest, Long> {
+    String ORDER_BY_CREATED = "ORDER BY R.created DESC, R.id DESC";
+
+    @EntityGraph(attributePaths = "requestor")
+    List<ItemRequest> findAllByRequestor_IdOrderByCreatedDescIdDesc(long user, Pageable pageable);
 
-    Page<ItemRequest> findAllByRequestor_IdOrderByCreatedDesc(long user, Pageable pageable);
+    @EntityGraph(attributePaths = "requestor")
+    @Query("SELECT R FROM ItemRequest R " +
+            "WHERE R.requestor.id = ?1 " +
+            "AND (R.created < ?2 OR (R.created = ?2 AND R.id < ?3)) " +
+            ORDER_BY_CREATED)
+    List<ItemRequest> findAllByRequestorIdAfterCursor(long user, LocalDateTime created, long id, Pageable pageable);
 
     @Query(value = "select * from REQUESTS R " +
             "join USERS U ON R.REQUESTOR != U.ID", nativeQuery = true)
     Page<ItemRequest> findAllByRequestorNotContainsOwner(long user, Pageable pageable);
 
-    Page<ItemRequest> findAllByRequestorNot(User requestor, Pageable pageable);
+    @EntityGraph(attributePaths = "requestor")
+    List<ItemRequest> findAllByRequestor_IdNotOrderByCreatedDescIdDesc(long user, Pageable pageable);
+
+    @EntityGraph(attributePaths = "requestor")
+    @Query("SELECT R FROM ItemRequest R " +
+            "WHERE R.requestor.id <> ?1 " +
+            "AND (R.created < ?2 OR (R.created = ?2 AND R.id < ?3)) " +
+            ORDER_BY_CREATED)
+    List<ItemRequest> findAllByRequestorIdNotAfterCursor(long user, LocalDateTime created, long id, Pageable pageable);
+
+    @Query("SELECT R.id AS id, R.requestor.id AS requestorId, R.description AS description " +
+            "FROM ItemRequest R " +
+            "WHERE NOT EXISTS (SELECT I.id FROM Item I WHERE I.request.id = R.id)")
+    List<OpenRequest> findOpenRequests();
+
+    @Query("SELECT R.id AS id, R.requestor.id AS requestorId, R.description AS description " +
+            "FROM ItemRequest R " +
+            "WHERE R.id IN ?1 " +
+            "AND NOT EXISTS (SELECT I.id FROM Item I WHERE I.request.id = R.id)")
+    List<OpenRequest> findOpenRequestsByIdIn(Collection<Long> requestIds);
+
+    @Query("SELECT DISTINCT I.request.id FROM Item I WHERE I.owner.id = ?1")
+    List<Long> findIdsByItemOwnerId(long ownerId);
+
+    @Query("SELECT R.version FROM ItemRequest R WHERE R.id = ?1")
+    Optional<Long> findVersionById(long requestId);
+
+    // A request's view lists the items answering it, so item writes bump the request's version.
+    @Transactional
+    @Modifying
+    @Query("UPDATE ItemRequest R SET R.version = R.version + 1 WHERE R.id IN ?1")
+    int incrementVersionByIdIn(Collection<Long> requestIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ItemRequest R SET R.version = R.version + 1 " +
+            "WHERE R.id IN (SELECT I.request.id FROM Item I WHERE I.owner.id = ?1)")
+    int incrementVersionByItemOwnerId(long ownerId);
 }
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.request.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.request.model.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.dto.RequestPageDto;
+import ru.practicum.shareit.request.model.dto.RequestTag;
 import ru.practicum.shareit.request.model.dto.RequestWithResponseDto;
 import ru.practicum.shareit.request.model.entity.ItemRequest;
 
@@ -16,7 +19,15 @@ public interface RequestService {
 
     List<RequestWithResponseDto> getAllResponsesForAllRequests(long userId, Integer from, Integer size);
 
+    RequestPageDto getAllResponsesAfterCursor(long userId, String cursor, Integer size);
+
     List<RequestWithResponseDto> getAllRequestsOtherUsers(long userId, Integer from, Integer size);
 
-    RequestWithResponseDto getRequestById(long userId, long requestId);
+    RequestPageDto getAllRequestsOtherUsersAfterCursor(long userId, String cursor, Integer size);
+
+    RequestTag getTag(long userId, long requestId);
+
+    RequestWithResponseDto getRequestById(RequestTag tag);
+
+    SseEmitter subscribeToMatches(long userId);
 }
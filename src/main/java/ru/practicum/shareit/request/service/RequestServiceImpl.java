@@ -1,25 +1,32 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
 import ru.practicum.shareit.item.dto.ItemForRequestDto;
-import ru.practicum.shareit.item.mapper.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pageable.SeekCursor;
 import ru.practicum.shareit.request.mapper.RequestMapper;
+import ru.practicum.shareit.request.matching.RequestMatchPublisher;
+import ru.practicum.shareit.request.matching.RequestMatcher;
 import ru.practicum.shareit.request.model.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.dto.RequestPageDto;
+import ru.practicum.shareit.request.model.dto.RequestTag;
 import ru.practicum.shareit.request.model.dto.RequestWithResponseDto;
 import ru.practicum.shareit.request.model.entity.ItemRequest;
 import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserCache;
 
 import javax.validation.ValidationException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -29,17 +36,23 @@ public class RequestServiceImpl implements RequestService {
 
     private final RequestRepository requestRepository;
     private final ItemRepository itemRepository;
-    private final UserService userService;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final RequestMatcher requestMatcher;
+    private final RequestMatchPublisher requestMatchPublisher;
 
     @Override
+    @Transactional
     public ItemRequestDto createRequest(ItemRequestDto itemRequestDto, long userId)
             throws ShareItNotFoundException {
         if (itemRequestDto.getDescription() == null || itemRequestDto.getDescription().isEmpty()) {
             throw new ValidationException("ItemRequest Description is empty");
         }
-        User requester = userService.checkUser(userId);
+        checkUser(userId);
+        User requester = userRepository.getReferenceById(userId);
         ItemRequest itemRequest = RequestMapper.toItemRequest(itemRequestDto, requester);
         requestRepository.save(itemRequest);
+        AfterCommit.run(() -> requestMatcher.put(itemRequest));
         return RequestMapper.toItemRequestDto(itemRequest);
     }
 
@@ -56,41 +69,103 @@ public class RequestServiceImpl implements RequestService {
     @Override
     public List<RequestWithResponseDto> getAllResponsesForAllRequests(long userId, Integer from, Integer size)
             throws ShareItNotFoundException {
-        userService.checkUser(userId);
-        Page<ItemRequest> itemRequests = requestRepository.findAllByRequestor_IdOrderByCreatedDesc(
+        checkUser(userId);
+        List<ItemRequest> itemRequests = requestRepository.findAllByRequestor_IdOrderByCreatedDescIdDesc(
                 userId, PageRequest.of(from, size));
-        return getRequestWithResponseDto(itemRequests.toList());
+        return getRequestWithResponseDto(itemRequests);
+    }
+
+    @Override
+    public RequestPageDto getAllResponsesAfterCursor(long userId, String cursor, Integer size)
+            throws ShareItNotFoundException {
+        checkUser(userId);
+        PageRequest pageable = PageRequest.of(0, size);
+        List<ItemRequest> itemRequests;
+        if (cursor.isEmpty()) {
+            itemRequests = requestRepository.findAllByRequestor_IdOrderByCreatedDescIdDesc(userId, pageable);
+        } else {
+            SeekCursor seekCursor = SeekCursor.decode(cursor);
+            itemRequests = requestRepository.findAllByRequestorIdAfterCursor(userId, seekCursor.getStart(),
+                    seekCursor.getId(), pageable);
+        }
+        return toRequestPageDto(itemRequests, size);
     }
 
     @Override
     public List<RequestWithResponseDto> getAllRequestsOtherUsers(long userId, Integer from, Integer size)
             throws ShareItNotFoundException {
-        User user = userService.checkUser(userId);
-        Page<ItemRequest> itemRequests = requestRepository.findAllByRequestorNot(user, PageRequest.of(from, size));
-        return getRequestWithResponseDto(itemRequests.toList());
+        checkUser(userId);
+        List<ItemRequest> itemRequests = requestRepository.findAllByRequestor_IdNotOrderByCreatedDescIdDesc(
+                userId, PageRequest.of(from, size));
+        return getRequestWithResponseDto(itemRequests);
+    }
+
+    @Override
+    public RequestPageDto getAllRequestsOtherUsersAfterCursor(long userId, String cursor, Integer size)
+            throws ShareItNotFoundException {
+        checkUser(userId);
+        PageRequest pageable = PageRequest.of(0, size);
+        List<ItemRequest> itemRequests;
+        if (cursor.isEmpty()) {
+            itemRequests = requestRepository.findAllByRequestor_IdNotOrderByCreatedDescIdDesc(userId, pageable);
+        } else {
+            SeekCursor seekCursor = SeekCursor.decode(cursor);
+            itemRequests = requestRepository.findAllByRequestorIdNotAfterCursor(userId, seekCursor.getStart(),
+                    seekCursor.getId(), pageable);
+        }
+        return toRequestPageDto(itemRequests, size);
     }
 
     @Override
-    public RequestWithResponseDto getRequestById(long userId, long requestId) {
-        userService.checkUser(userId);
-        ItemRequest itemRequest = checkItemRequest(requestId);
-        List<Item> items = itemRepository.findAllByRequest_IdOrderByRequestIdDesc(itemRequest.getId());
-        List<ItemForRequestDto> requests = items.stream()
-                .map(ItemMapper::toItemForRequestDto)
-                .collect(Collectors.toList());
-        return RequestMapper.toRequestWithResponseDto(itemRequest, requests);
+    public RequestTag getTag(long userId, long requestId) {
+        checkUser(userId);
+        return requestRepository.findVersionById(requestId)
+                .map(version -> new RequestTag(requestId, version))
+                .orElseThrow(() -> new ShareItNotFoundException(
+                        String.format("ItemRequest by ID: %s  - not found", requestId)));
+    }
+
+    @Override
+    public RequestWithResponseDto getRequestById(RequestTag tag) {
+        ItemRequest itemRequest = checkItemRequest(tag.getRequestId());
+        List<ItemForRequestDto> items = itemRepository.findForRequestDtosByRequestIdIn(List.of(itemRequest.getId()));
+        return RequestMapper.toRequestWithResponseDto(itemRequest, items);
+    }
+
+    @Override
+    public SseEmitter subscribeToMatches(long userId) {
+        checkUser(userId);
+        return requestMatchPublisher.subscribe(userId);
     }
 
     public List<RequestWithResponseDto> getRequestWithResponseDto(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> requestIds = itemRequests.stream().map(ItemRequest::getId).collect(Collectors.toList());
+        Map<Long, List<ItemForRequestDto>> itemsByRequest = itemRepository.findForRequestDtosByRequestIdIn(requestIds)
+                .stream()
+                .collect(Collectors.groupingBy(ItemForRequestDto::getRequestId));
+
         List<RequestWithResponseDto> requestWithResponseDtos = new ArrayList<>();
         for (ItemRequest itemRequest : itemRequests) {
-            List<Item> items = itemRepository.findAllByRequest_IdOrderByRequestIdDesc(itemRequest.getId());
-            List<ItemForRequestDto> requests = items.stream()
-                    .map(ItemMapper::toItemForRequestDto)
-                    .collect(Collectors.toList());
-            RequestWithResponseDto request = RequestMapper.toRequestWithResponseDto(itemRequest, requests);
-            requestWithResponseDtos.add(request);
+            requestWithResponseDtos.add(RequestMapper.toRequestWithResponseDto(itemRequest,
+                    itemsByRequest.getOrDefault(itemRequest.getId(), new ArrayList<>())));
         }
         return requestWithResponseDtos;
     }
+
+    private void checkUser(long userId) {
+        userCache.find(userId)
+                .orElseThrow(() -> new ShareItNotFoundException(String.format("User by ID: %s not found", userId)));
+    }
+
+    private RequestPageDto toRequestPageDto(List<ItemRequest> itemRequests, int size) {
+        String nextCursor = null;
+        if (itemRequests.size() == size) {
+            ItemRequest last = itemRequests.get(itemRequests.size() - 1);
+            nextCursor = new SeekCursor(last.getCreated(), last.getId()).encode();
+        }
+        return new RequestPageDto(getRequestWithResponseDto(itemRequests), nextCursor);
+    }
 }
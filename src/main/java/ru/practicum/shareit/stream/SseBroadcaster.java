@@ -0,0 +1,235 @@
+package ru.practicum.shareit.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent event streams keyed by user, with a bounded buffer per subscriber.
+ * Publishing only enqueues; a small dispatcher pool drains a subscriber's buffer, at most one drain per
+ * subscriber at a time. A subscriber whose buffer is full is too slow to keep up and is disconnected,
+ * the client is expected to reconnect and re-read current state. Idle subscribers hold no thread.
+ * A send to a stalled connection still blocks its dispatcher thread until the container's write timeout,
+ * so other subscribers are served by the remaining threads and the publisher never waits on a send.
+ * Callers publish one event per write, batching related changes into one payload, so a burst from a single
+ * request never fills a buffer. {@link #keepAlive} sends a comment to idle subscribers, so a dead
+ * connection fails its next write and is removed instead of holding its slot until the timeout.
+ */
+@Slf4j
+public class SseBroadcaster {
+    private final String name;
+    private final String eventName;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount;
+    private final Counter evictions;
+    private final ExecutorService dispatcher;
+
+    public SseBroadcaster(String name, String eventName, Duration timeout, int bufferSize, int dispatcherThreads,
+                          MeterRegistry meterRegistry) {
+        this.name = name;
+        this.eventName = eventName;
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = bufferSize;
+        this.subscriberCount = meterRegistry.gauge("shareit.stream.subscribers", Tags.of("stream", name),
+                new AtomicInteger());
+        this.evictions = meterRegistry.counter("shareit.stream.evictions", "stream", name);
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-dispatcher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(long userId) {
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeoutMillis));
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            Set<Subscriber> result = userSubscribers == null ? ConcurrentHashMap.newKeySet() : userSubscribers;
+            result.add(subscriber);
+            return result;
+        });
+        subscriberCount.incrementAndGet();
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(error -> remove(subscriber));
+        return subscriber.emitter;
+    }
+
+    public boolean hasSubscribers(long userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    /**
+     * Queues the event for the user's subscribers; inside a transaction, only once it has committed.
+     */
+    public void publish(long userId, Object event) {
+        publish(userId, eventName, event);
+    }
+
+    public void publish(long userId, String name, Object data) {
+        Event event = new Event(name, data);
+        AfterCommit.run(() -> enqueue(userId, event));
+    }
+
+    /**
+     * Queues a comment line for every subscriber with nothing buffered; ones with pending events are
+     * already being written to.
+     */
+    public void keepAlive() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            if (subscriber.buffered.get() == 0) {
+                subscriber.offer(Event.KEEP_ALIVE);
+            }
+        }));
+    }
+
+    public void disconnect(long userId) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(Subscriber::close);
+        }
+    }
+
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(Subscriber::close));
+    }
+
+    private void enqueue(long userId, Event event) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            if (userSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private final class Subscriber implements Runnable {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final Queue<Event> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            if (closed) {
+                return;
+            }
+            if (buffered.incrementAndGet() > bufferSize) {
+                log.debug("Evicting slow {} subscriber {}", name, userId);
+                evictions.increment();
+                close();
+                return;
+            }
+            buffer.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Event event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    buffered.decrementAndGet();
+                    emitter.send(event.toSse());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("{} subscriber {} disconnected: {}", name, userId, e.getMessage());
+                remove(this);
+            }
+            draining.set(false);
+            if (closed) {
+                // Whoever takes the flag completes the emitter; it is never released again.
+                if (draining.compareAndSet(false, true)) {
+                    buffer.clear();
+                    complete();
+                }
+            } else if (!buffer.isEmpty()) {
+                // An event offered between the last poll and the reset above would otherwise wait for the next one.
+                schedule();
+            }
+        }
+
+        // The emitter's send and complete share a lock, so a subscriber that is being drained is completed
+        // by its drain once the current send returns, never by the publishing thread.
+        private void close() {
+            remove(this);
+            buffer.clear();
+            if (draining.compareAndSet(false, true)) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                log.debug("{} subscriber {} already closed", name, userId);
+            }
+        }
+    }
+
+    private static final class Event {
+        private static final Event KEEP_ALIVE = new Event(null, null);
+
+        private final String name;
+        private final Object data;
+
+        private Event(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        // A builder is consumed by the send, so each subscriber gets its own.
+        private SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("");
+            }
+            return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package ru.practicum.shareit.user.controller;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -21,7 +21,7 @@ public class UserController {
     }
 
     @PatchMapping("/{userId}")
-    public UserDto update(@RequestBody Map<Object, Object> fields, @PathVariable long userId) throws JsonMappingException {
+    public UserDto update(@RequestBody Map<Object, Object> fields, @PathVariable long userId) {
         return userService.update(fields, userId);
     }
 
@@ -31,7 +31,10 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public UserDto findUserById(@PathVariable long userId) {
+    public UserDto findUserById(@PathVariable long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(userService.getETag(userId))) {
+            return null;
+        }
         return userService.findUserById(userId);
     }
 
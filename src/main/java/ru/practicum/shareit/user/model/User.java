@@ -4,6 +4,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -15,6 +16,7 @@ import javax.validation.constraints.Pattern;
 @Setter
 @NoArgsConstructor
 @Entity
+@DynamicUpdate
 @Table(name = "USERS")
 public class User {
 
@@ -33,4 +35,8 @@ public class User {
     @NotNull
     @Pattern(regexp = "^(.+)@(\\S+)$")
     private String email;
+
+    @Version
+    @Column(name = "VERSION")
+    private long version;
 }
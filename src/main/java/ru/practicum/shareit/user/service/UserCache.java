@@ -0,0 +1,49 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.cache.ConcurrentLruCache;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache of users by id, used to resolve X-Sharer-User-Id without a query on every call.
+ * Bounded by max-size with least-recently-used eviction; unknown ids are not cached.
+ * Writes invalidate the user both at once and when their transaction completes, since a reader can still
+ * load the old row until it commits; a load that overlapped either invalidation is not stored.
+ */
+@Service
+public class UserCache {
+    private final UserRepository userRepository;
+    private final ConcurrentLruCache<Long, UserDto> users;
+
+    public UserCache(UserRepository userRepository,
+                     @Value("${shareit.user.cache.max-size}") int maxSize,
+                     MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.users = new ConcurrentLruCache<>(maxSize, "shareit.user.cache", meterRegistry);
+    }
+
+    public Optional<UserDto> find(long userId) {
+        return Optional.ofNullable(users.get(userId, user -> true,
+                id -> userRepository.findById(id).map(UserMapper::toUserDto).orElse(null)));
+    }
+
+    public void invalidate(long userId) {
+        users.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    users.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package ru.practicum.shareit.user.service;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -14,12 +13,14 @@ public interface UserService {
 
     UserDto save(UserDto userDto);
 
-    UserDto update(Map<Object, Object> fields, long userId) throws JsonMappingException;
+    UserDto update(Map<Object, Object> fields, long userId);
 
     void deleteById(long userId);
 
     List<UserDto> findAll();
 
+    String getETag(long userId);
+
     UserDto findUserById(long userId);
 
     User checkUser(long userId) throws ShareItNotFoundException;
@@ -1,11 +1,21 @@
 package ru.practicum.shareit.user.service;
 
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.service.BookingEventPublisher;
+import ru.practicum.shareit.booking.service.ItemBookingSummary;
 import ru.practicum.shareit.exception.ShareItNotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.service.ItemDetailCache;
+import ru.practicum.shareit.patch.PatchApplier;
+import ru.practicum.shareit.request.matching.RequestMatchPublisher;
+import ru.practicum.shareit.request.matching.RequestMatcher;
+import ru.practicum.shareit.request.model.dto.OpenRequest;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+import ru.practicum.shareit.item.search.ItemSearchCache;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -20,8 +30,22 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
-    private final ObjectMapper objectMapper;
+    private final UserCache userCache;
+    private final ItemRepository itemRepository;
+    private final RequestRepository requestRepository;
+    private final ItemBookingSummary itemBookingSummary;
+    private final BookingEventPublisher bookingEventPublisher;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemDetailCache itemDetailCache;
+    private final RequestMatcher requestMatcher;
+    private final RequestMatchPublisher requestMatchPublisher;
     private static final String USER_NOT_FOUND = "Пользователя с указанным Id не существует.";
+    private static final PatchApplier<User> USER_PATCH = PatchApplier.<User>builder()
+            .ignore("id")
+            .string("name", 255, User::setName)
+            .string("email", 512, "^(.+)@(\\S+)$", User::setEmail)
+            .build();
 
     @Override
     @Transactional
@@ -35,12 +59,16 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
-    public UserDto update(Map<Object, Object> fields, long userId) throws JsonMappingException {
+    public UserDto update(Map<Object, Object> fields, long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ShareItNotFoundException(USER_NOT_FOUND));
-        user = objectMapper.updateValue(user, fields);
+        USER_PATCH.apply(user, fields);
 
-        userRepository.save(user);
+        userRepository.flush();
+        userCache.invalidate(userId);
+        itemRepository.incrementVersionByCommentAuthorId(userId);
+        // Cached comments carry the author's name.
+        itemDetailCache.invalidateAll();
         return UserMapper.toUserDto(user);
     }
 
@@ -48,7 +76,25 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteById(long userId) {
         User user = checkUser(userId);
+        itemRepository.decrementCommentCountsByAuthorId(userId);
+        requestRepository.incrementVersionByItemOwnerId(userId);
+        List<Long> answeredRequestIds = requestRepository.findIdsByItemOwnerId(userId);
         userRepository.delete(user);
+        userRepository.flush();
+        List<OpenRequest> reopened = answeredRequestIds.isEmpty()
+                ? List.of()
+                : requestRepository.findOpenRequestsByIdIn(answeredRequestIds);
+        userCache.invalidate(userId);
+        AfterCommit.run(() -> {
+            itemBookingSummary.invalidateAll();
+            itemSearchCache.invalidateAll();
+            itemNameSuggester.deleteByOwner(userId);
+            itemDetailCache.invalidateAll();
+            requestMatcher.deleteByRequestor(userId);
+            requestMatcher.reopen(reopened);
+            requestMatchPublisher.disconnect(userId);
+            bookingEventPublisher.disconnect(userId);
+        });
     }
 
     @Override
@@ -58,10 +104,17 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public String getETag(long userId) {
+        return userRepository.findVersionById(userId)
+                .map(version -> "\"" + version + "\"")
+                .orElseThrow(() -> new ShareItNotFoundException(String.format("User by ID: %s not found", userId)));
+    }
+
     @Override
     public UserDto findUserById(long userId) {
-        User user = checkUser(userId);
-        return UserMapper.toUserDto(user);
+        return userCache.find(userId)
+                .orElseThrow(() -> new ShareItNotFoundException(String.format("User by ID: %s not found", userId)));
     }
 
     @Override
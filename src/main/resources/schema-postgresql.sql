@@ -0,0 +1,9 @@
+create extension if not exists pg_trgm;
+
+create index if not exists ITEMS_NAME_TRGM_IDX on ITEMS using gin (lower(NAME) gin_trgm_ops) where AVAILABLE = true;
+
+create index if not exists ITEMS_DESCRIPTION_TRGM_IDX on ITEMS using gin (lower(DESCRIPTION) gin_trgm_ops)
+    where AVAILABLE = true;
+
+create index if not exists ITEMS_TEXT_FTS_IDX on ITEMS using gin (to_tsvector('simple', NAME || ' ' || DESCRIPTION))
+    where AVAILABLE = true;
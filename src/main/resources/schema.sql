@@ -1,10 +1,14 @@
 drop table if exists REQUESTS, COMMENTS, BOOKINGS, ITEMS, USERS;
+drop sequence if exists ITEMS_SEQ;
+
+create sequence if not exists ITEMS_SEQ start with 1 increment by 50;
 
 create table if not exists USERS
 (
     ID bigint generated by default as identity not null primary key,
     NAME varchar(255) not null,
-    EMAIL varchar(512) not null unique
+    EMAIL varchar(512) not null unique,
+    VERSION bigint default 0 not null
 );
 
 create table if not exists REQUESTS
@@ -13,15 +17,18 @@ create table if not exists REQUESTS
     DESCRIPTION varchar(1024),
     REQUESTOR bigint not null,
     CREATED timestamp without time zone,
+    VERSION bigint default 0 not null,
     foreign key (REQUESTOR) references USERS (ID) on delete  cascade
 );
 
 create table if not exists ITEMS
 (
-    ID bigint generated by default as identity primary key,
+    ID bigint primary key,
     NAME varchar(255) not null,
     DESCRIPTION varchar(1024) not null,
     AVAILABLE boolean,
+    COMMENT_COUNT integer default 0 not null,
+    VERSION bigint default 0 not null,
     OWNER_ID bigint,
     REQUEST_ID bigint,
     foreign key (OWNER_ID) references USERS (ID) on delete cascade,
@@ -35,6 +42,7 @@ create table if not exists BOOKINGS
     END_DATE timestamp without time zone,
     ITEM_ID bigint not null,
     BOOKER_ID bigint not null,
+    ITEM_OWNER_ID bigint not null,
     STATUS varchar,
     foreign key (ITEM_ID) references ITEMS (ID) on delete cascade,
     foreign key (BOOKER_ID) references USERS (ID) on delete cascade
@@ -49,4 +57,24 @@ create table if not exists COMMENTS
     CREATED timestamp without time zone,
     foreign key (ITEM_ID) references ITEMS (ID) on delete cascade,
     foreign key (AUTHOR_ID) references USERS (ID) on delete cascade
-);
\ No newline at end of file
+);
+
+create index if not exists BOOKINGS_BOOKER_START_IDX on BOOKINGS (BOOKER_ID, START_DATE desc, ID desc);
+
+create index if not exists BOOKINGS_ITEM_START_IDX on BOOKINGS (ITEM_ID, START_DATE desc, ID desc);
+
+create index if not exists BOOKINGS_OWNER_START_IDX on BOOKINGS (ITEM_OWNER_ID, START_DATE desc, ID desc);
+
+create index if not exists BOOKINGS_BOOKER_STATUS_START_IDX on BOOKINGS (BOOKER_ID, STATUS, START_DATE desc);
+
+create index if not exists BOOKINGS_ITEM_PERIOD_IDX on BOOKINGS (ITEM_ID, START_DATE, END_DATE);
+
+create index if not exists BOOKINGS_STATUS_START_IDX on BOOKINGS (STATUS, START_DATE);
+
+create index if not exists COMMENTS_ITEM_CREATED_IDX on COMMENTS (ITEM_ID, CREATED desc, ID desc);
+
+create index if not exists ITEMS_REQUEST_IDX on ITEMS (REQUEST_ID);
+
+create index if not exists REQUESTS_CREATED_IDX on REQUESTS (CREATED desc, ID desc);
+
+create index if not exists REQUESTS_REQUESTOR_CREATED_IDX on REQUESTS (REQUESTOR, CREATED desc, ID desc);
@@ -0,0 +1,277 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookingConcurrencyTest {
+    private static final int BOOKINGS = 2000;
+    private static final int THREADS = 32;
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void parallelBookingsOfOneItemNeverOverlap() throws Exception {
+        long ownerId = createUser("owner@parallel.ru");
+        long bookerId = createUser("booker@parallel.ru");
+        long itemId = createItem(ownerId);
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        List<Future<?>> requests = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < BOOKINGS; i++) {
+            int start = random.nextInt(5000);
+            int length = 1 + random.nextInt(20);
+            requests.add(pool.submit(() -> {
+                int status = book(bookerId, itemId, base.plusHours(start), base.plusHours(start + length)).getStatus();
+                if (status == 200) {
+                    accepted.incrementAndGet();
+                } else if (status != 400) {
+                    unexpected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        pool.shutdown();
+
+        List<Booking> active = activeBookings(itemId);
+        assertEquals(0, unexpected.get());
+        assertTrue(accepted.get() > 0);
+        assertEquals(accepted.get(), active.size());
+        assertNoOverlaps(active);
+    }
+
+    @Test
+    void parallelApprovalsOfOneBookingSucceedOnce() throws Exception {
+        long ownerId = createUser("owner@approve.ru");
+        long bookerId = createUser("booker@approve.ru");
+        long itemId = createItem(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long bookingId = readId(book(bookerId, itemId, start, start.plusDays(1)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger approved = new AtomicInteger();
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(pool.submit(() -> {
+                MockHttpServletResponse response = mvc.perform(patch("/bookings/" + bookingId)
+                                .param("approved", "true")
+                                .header(USER_HEADER, ownerId))
+                        .andReturn().getResponse();
+                if (response.getStatus() == 200) {
+                    approved.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, approved.get());
+    }
+
+    @Test
+    void bookingOverlappingAnEarlierLongerBookingIsRejected() throws Exception {
+        long ownerId = createUser("owner@legacy.ru");
+        long bookerId = createUser("booker@legacy.ru");
+        long itemId = createItem(ownerId);
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        // Rows written straight to BOOKINGS may already overlap each other.
+        storeWaiting(bookerId, itemId, base, base.plusHours(100));
+        storeWaiting(bookerId, itemId, base.plusHours(10), base.plusHours(20));
+
+        assertEquals(400, book(bookerId, itemId, base.plusHours(50), base.plusHours(60)).getStatus());
+        assertEquals(200, book(bookerId, itemId, base.plusHours(100), base.plusHours(110)).getStatus());
+    }
+
+    @Test
+    void batchApprovalReportsOverlappingBookingsAsConflicts() throws Exception {
+        long ownerId = createUser("owner@batch.ru");
+        long bookerId = createUser("booker@batch.ru");
+        long itemId = createItem(ownerId);
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        long first = storeWaiting(bookerId, itemId, base, base.plusHours(10));
+        long second = storeWaiting(bookerId, itemId, base.plusHours(5), base.plusHours(15));
+
+        JsonNode results = decide(ownerId, List.of(first, second), true);
+
+        assertEquals("UPDATED", results.get(0).get("result").asText());
+        assertEquals("CONFLICT", results.get(1).get("result").asText());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(second).orElseThrow().getStatus());
+    }
+
+    @Test
+    void parallelBatchRejectionsReportEachBookingOnce() throws Exception {
+        long ownerId = createUser("owner@reject.ru");
+        long bookerId = createUser("booker@reject.ru");
+        long itemId = createItem(ownerId);
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            bookingIds.add(storeWaiting(bookerId, itemId, base.plusHours(i), base.plusHours(i + 1)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger updated = new AtomicInteger();
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(pool.submit(() -> {
+                for (JsonNode result : decide(ownerId, bookingIds, false)) {
+                    if ("UPDATED".equals(result.get("result").asText())) {
+                        updated.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> request : requests) {
+            request.get();
+        }
+        pool.shutdown();
+
+        assertEquals(bookingIds.size(), updated.get());
+        assertTrue(bookingRepository.findAllById(bookingIds).stream()
+                .allMatch(booking -> booking.getStatus() == BookingStatus.REJECTED));
+    }
+
+    @Test
+    void batchDecisionOverTheLimitIsRejected() throws Exception {
+        long ownerId = createUser("owner@limit.ru");
+        List<Long> bookingIds = LongStream.rangeClosed(1, BookingDecisionDto.MAX_BOOKINGS + 1).boxed()
+                .collect(Collectors.toList());
+
+        assertEquals(400, batch(ownerId, bookingIds, false).getStatus());
+    }
+
+    private List<Booking> activeBookings(long itemId) {
+        return bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId,
+                        List.of(BookingStatus.WAITING, BookingStatus.APPROVED), LocalDateTime.now()).stream()
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+    }
+
+    private void assertNoOverlaps(List<Booking> bookings) {
+        LocalDateTime latestEnd = LocalDateTime.MIN;
+        for (Booking booking : bookings) {
+            assertFalse(latestEnd.isAfter(booking.getStart()), "Booking " + booking.getId() + " overlaps");
+            if (booking.getEnd().isAfter(latestEnd)) {
+                latestEnd = booking.getEnd();
+            }
+        }
+    }
+
+    private long storeWaiting(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(itemRepository.findById(itemId).orElseThrow());
+        booking.setBooker(userRepository.findById(bookerId).orElseThrow());
+        booking.setItemOwnerId(booking.getItem().getOwner().getId());
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(BookingStatus.WAITING);
+        return bookingRepository.save(booking).getId();
+    }
+
+    private JsonNode decide(long ownerId, List<Long> bookingIds, boolean approved) throws Exception {
+        MockHttpServletResponse response = batch(ownerId, bookingIds, approved);
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsByteArray());
+    }
+
+    private MockHttpServletResponse batch(long ownerId, List<Long> bookingIds, boolean approved) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("bookingIds", bookingIds, "approved", approved));
+        return mvc.perform(patch("/bookings/batch")
+                        .header(USER_HEADER, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse();
+    }
+
+    private MockHttpServletResponse book(long bookerId, long itemId, LocalDateTime start, LocalDateTime end)
+            throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("itemId", itemId,
+                "start", start.toString(), "end", end.toString()));
+        return mvc.perform(post("/bookings")
+                        .header(USER_HEADER, bookerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse();
+    }
+
+    private long createUser(String email) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("name", "user", "email", email));
+        return readId(mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse());
+    }
+
+    private long createItem(long ownerId) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("name", "Дрель", "description", "Простая дрель",
+                "available", true));
+        return readId(mvc.perform(post("/items")
+                        .header(USER_HEADER, ownerId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse());
+    }
+
+    private long readId(MockHttpServletResponse response) throws Exception {
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsByteArray()).get("id").asLong();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLruCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentLruCache<Long, String> cache = new ConcurrentLruCache<>(10, "test.cache", meterRegistry);
+
+    @Test
+    void invalidatingAKeyWhileItLoadsKeepsTheLoadedValueOut() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getAll(List.of(1L, 2L), value -> true, missing -> {
+            cache.invalidate(1L);
+            loads.incrementAndGet();
+            return Map.of(1L, "one", 2L, "two");
+        });
+
+        assertEquals("one again", cache.get(1L, value -> true, key -> "one again"));
+        assertEquals("two", cache.get(2L, value -> true, key -> "two again"));
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.counter("test.cache.hits").count());
+    }
+
+    @Test
+    void invalidatingAKeyLeavesTheOtherKeysCached() {
+        cache.get(1L, value -> true, key -> "one");
+        cache.get(2L, value -> true, key -> "two");
+
+        cache.invalidate(1L);
+
+        assertEquals("one reloaded", cache.get(1L, value -> true, key -> "one reloaded"));
+        assertEquals("two", cache.get(2L, value -> true, key -> "two reloaded"));
+    }
+
+    @Test
+    void invalidValueIsReloaded() {
+        cache.get(1L, value -> true, key -> "stale");
+
+        assertEquals("fresh", cache.get(1L, value -> !value.equals("stale"), key -> "fresh"));
+    }
+
+    @Test
+    void sizeStaysBoundedAndRecentlyUsedKeysSurvive() {
+        for (long key = 1; key <= 100; key++) {
+            cache.get(0L, value -> true, k -> "zero");
+            cache.get(key, value -> true, k -> "value " + k);
+        }
+
+        // A loader returning null stores nothing, so probing leaves the cache as it was.
+        int cached = 0;
+        for (long key = 1; key <= 100; key++) {
+            if (cache.get(key, value -> true, k -> null) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached < 10, "cached " + cached);
+        assertEquals("zero", cache.get(0L, value -> true, k -> null));
+        assertTrue(meterRegistry.counter("test.cache.evictions", "cause", "size").count() >= 90);
+    }
+}
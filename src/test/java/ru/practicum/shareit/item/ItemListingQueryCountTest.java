@@ -0,0 +1,154 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemBookingSummary;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ItemListingQueryCountTest {
+    private static final int ITEMS = 5;
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemBookingSummary itemBookingSummary;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void ownerListingRunsTheSameStatementsForAnyPageSize() throws Exception {
+        long ownerId = createUser("owner@listing.ru");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            long requestorId = createUser("requestor" + i + "@listing.ru");
+            long requestId = create("/requests", requestorId, Map.of("description", "Нужна дрель " + i));
+            long itemId = create("/items", ownerId, Map.of("name", "Дрель " + i, "description", "Простая дрель",
+                    "available", true, "requestId", requestId));
+            store(createUser("past" + i + "@listing.ru"), itemId, now.minusDays(2), now.minusDays(1));
+            store(createUser("next" + i + "@listing.ru"), itemId, now.plusDays(1), now.plusDays(2));
+        }
+
+        long single = countStatements(ownerId, 1);
+        long page = countStatements(ownerId, ITEMS);
+
+        assertEquals(single, page);
+    }
+
+    @Test
+    void ownerItemReadLooksUpTheVersionOnce() throws Exception {
+        long ownerId = createUser("owner@etag.ru");
+        long itemId = create("/items", ownerId, Map.of("name", "Отвёртка", "description", "Крестовая",
+                "available", true));
+        LocalDateTime now = LocalDateTime.now();
+        store(createUser("next@etag.ru"), itemId, now.plusDays(1), now.plusDays(2));
+        // Warm the user, detail and booking caches, so only the version lookup is left.
+        getItem(ownerId, itemId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        JsonNode item = objectMapper.readTree(getItem(ownerId, itemId).getContentAsByteArray());
+
+        assertFalse(item.get("nextBooking").isNull());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private MockHttpServletResponse getItem(long userId, long itemId) throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/items/" + itemId)
+                        .header(USER_HEADER, userId))
+                .andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return response;
+    }
+
+    private long countStatements(long ownerId, int size) throws Exception {
+        // Warm the user cache so both runs see the same cached state apart from the booking summary.
+        listItems(ownerId, size);
+        itemBookingSummary.invalidateAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        JsonNode items = objectMapper.readTree(listItems(ownerId, size).getContentAsByteArray());
+
+        assertEquals(size, items.size());
+        for (JsonNode item : items) {
+            assertFalse(item.get("lastBooking").isNull());
+            assertFalse(item.get("nextBooking").isNull());
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private MockHttpServletResponse listItems(long ownerId, int size) throws Exception {
+        MockHttpServletResponse response = mvc.perform(get("/items")
+                        .param("size", String.valueOf(size))
+                        .header(USER_HEADER, ownerId))
+                .andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return response;
+    }
+
+    private void store(long bookerId, long itemId, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(itemRepository.findById(itemId).orElseThrow());
+        booking.setBooker(userRepository.findById(bookerId).orElseThrow());
+        booking.setItemOwnerId(booking.getItem().getOwner().getId());
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(booking);
+    }
+
+    private long createUser(String email) throws Exception {
+        return create("/users", null, Map.of("name", "user", "email", email));
+    }
+
+    private long create(String path, Long userId, Map<String, Object> fields) throws Exception {
+        var request = post(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(fields));
+        if (userId != null) {
+            request.header(USER_HEADER, userId);
+        }
+        MockHttpServletResponse response = mvc.perform(request).andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsByteArray()).get("id").asLong();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemRequestPageSizeTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long userId;
+
+    @BeforeEach
+    void createUser() throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("name", "user",
+                "email", UUID.randomUUID() + "@requests.ru"));
+        MockHttpServletResponse response = mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn().getResponse();
+        userId = objectMapper.readTree(response.getContentAsByteArray()).get("id").asLong();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/requests, 0, 400", "/requests, -1, 400", "/requests, 1, 200",
+            "/requests/all, 0, 400", "/requests/all, -1, 400", "/requests/all, 1, 200"})
+    void cursorPageSizeMustBePositive(String path, int size, int status) throws Exception {
+        MockHttpServletResponse response = mvc.perform(get(path)
+                        .param("cursor", "")
+                        .param("size", String.valueOf(size))
+                        .header(USER_HEADER, userId))
+                .andReturn().getResponse();
+
+        assertEquals(status, response.getStatus(), response.getContentAsString());
+    }
+}